@@ -0,0 +1,35 @@
+package moreland.base64.cli.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+final class BenchmarkData {
+
+	private BenchmarkData() {
+	}
+
+	static byte[] randomBytes(int length) {
+		var bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * wraps {@code source} so that no read returns more than {@code readSize} bytes,
+	 * mimicking pipes and sockets with a given buffer size
+	 */
+	static InputStream limitReads(InputStream source, int readSize) {
+		return new InputStream() {
+			@Override
+			public int read() throws IOException {
+				return source.read();
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				return source.read(buffer, offset, Math.min(length, readSize));
+			}
+		};
+	}
+}
@@ -0,0 +1,125 @@
+package moreland.base64.cli.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import moreland.base64.cli.Base64EncoderService;
+import moreland.base64.cli.EncoderService;
+import moreland.base64.cli.internal.Base64Engine;
+import moreland.base64.cli.internal.Base64Variant;
+
+/**
+ * in memory encode and decode of {@code byte[]}, {@link String}, {@code char[]} and {@link java.io.InputStream} sources
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector", "-Xmx8g" })
+public class EncoderServiceBenchmark {
+
+	@Param({ "scalar", "jdk", "swar", "vector" })
+	private String engine;
+
+	@Param({ "16", "1024", "65536", "1048576", "67108864", "1073741824" })
+	private int size;
+
+	@Param({ "basic", "url-safe-unpadded", "mime" })
+	private String variant;
+
+	private EncoderService encoderService;
+	private byte[] source;
+	private byte[] encoded;
+	private String sourceText;
+	private String encodedText;
+	private char[] encodedChars;
+
+	@Setup
+	public void setup() {
+		encoderService = new Base64EncoderService(true, Base64Engine.named(engine), variant(variant));
+		source = BenchmarkData.randomBytes(size);
+		encoded = encoderService.encode(source);
+		sourceText = asciiText(source);
+		encodedText = new String(encoded, StandardCharsets.ISO_8859_1);
+		encodedChars = encodedText.toCharArray();
+	}
+
+	private static Base64Variant variant(String name) {
+		return switch (name) {
+			case "url-safe-unpadded" -> Base64Variant.URL_SAFE.withoutPadding();
+			case "mime" -> Base64Variant.MIME;
+			default -> Base64Variant.BASIC;
+		};
+	}
+
+	/**
+	 * {@link EncoderService#encode(String)} encodes the UTF-8 bytes of the text, keep the text ascii
+	 * so that it encodes to {@code size} bytes
+	 */
+	private static String asciiText(byte[] source) {
+		var ascii = new byte[source.length];
+		for (int i = 0; i < source.length; i++) {
+			ascii[i] = (byte) (source[i] & 0x7F);
+		}
+		return new String(ascii, StandardCharsets.US_ASCII);
+	}
+
+	@Benchmark
+	public byte[] encodeBytes() {
+		return encoderService.encode(source);
+	}
+
+	@Benchmark
+	public byte[] decodeBytes() {
+		return encoderService.decode(encoded);
+	}
+
+	@Benchmark
+	public String encodeString() {
+		return encoderService.encode(sourceText);
+	}
+
+	@Benchmark
+	public byte[] decodeString() {
+		return encoderService.decode(encodedText);
+	}
+
+	@Benchmark
+	public String encodeToString() {
+		return encoderService.encodeToString(source);
+	}
+
+	@Benchmark
+	public byte[] decodeChars() {
+		return encoderService.decode(encodedChars, 0, encodedChars.length);
+	}
+
+	@Benchmark
+	public String decodeToString() {
+		return encoderService.decodeToString(encodedText, StandardCharsets.ISO_8859_1);
+	}
+
+	@Benchmark
+	public byte[] encodeInputStream() {
+		return encoderService.encode(new ByteArrayInputStream(source));
+	}
+
+	@Benchmark
+	public byte[] decodeInputStream() {
+		return encoderService.decode(new ByteArrayInputStream(encoded));
+	}
+}
@@ -0,0 +1,115 @@
+package moreland.base64.cli.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import moreland.base64.cli.Base64EncoderService;
+import moreland.base64.cli.FileEncoderService;
+import moreland.base64.cli.SimpleFileEncoderService;
+
+/**
+ * file based encode and decode; {@code mode} forces buffered streams, memory mapped channels, parallel
+ * segments or an asynchronous pipeline 4 buffers deep for file to file conversions regardless of the configured size thresholds
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector", "-Xmx8g" })
+public class FileEncoderServiceBenchmark {
+
+	@Param({ "scalar", "jdk", "swar", "vector" })
+	private String engine;
+
+	@Param({ "16", "1048576", "67108864", "1073741824" })
+	private int size;
+
+	@Param({ "stream", "mapped", "parallel", "pipelined" })
+	private String mode;
+
+	private FileEncoderService fileEncoderService;
+	private Path directory;
+	private File source;
+	private File encoded;
+	private File output;
+
+	@Setup
+	public void setup() throws IOException {
+		var encoderService = new Base64EncoderService(true, engine);
+		fileEncoderService = switch (mode) {
+			case "stream" -> new SimpleFileEncoderService(encoderService, -1, -1);
+			case "mapped" -> new SimpleFileEncoderService(encoderService, 0, -1);
+			case "parallel" -> new SimpleFileEncoderService(encoderService, 0, 0);
+			case "pipelined" -> new SimpleFileEncoderService(encoderService, -1, -1, 4, 1024 * 1024);
+			default -> throw new IllegalArgumentException("Unknown mode " + mode);
+		};
+
+		directory = Files.createTempDirectory("base64-benchmark");
+		source = directory.resolve("source.bin").toFile();
+		encoded = directory.resolve("source.b64").toFile();
+		output = directory.resolve("output").toFile();
+		Files.write(source.toPath(), BenchmarkData.randomBytes(size));
+		fileEncoderService.encode(source, encoded);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		for (var file : new File[] { source, encoded, output }) {
+			Files.deleteIfExists(file.toPath());
+		}
+		Files.deleteIfExists(directory);
+	}
+
+	@Benchmark
+	public boolean encodeFileToFile() {
+		return fileEncoderService.encode(source, output);
+	}
+
+	@Benchmark
+	public boolean decodeFileToFile() {
+		return fileEncoderService.decode(encoded, output);
+	}
+
+	@Benchmark
+	public Optional<byte[]> encodeFile() {
+		return fileEncoderService.encode(source);
+	}
+
+	@Benchmark
+	public Optional<byte[]> decodeFile() {
+		return fileEncoderService.decode(encoded);
+	}
+
+	@Benchmark
+	public boolean encodeStreamToFile() throws IOException {
+		try (var stream = new FileInputStream(source)) {
+			return fileEncoderService.encode(stream, output);
+		}
+	}
+
+	@Benchmark
+	public boolean decodeStreamToFile() throws IOException {
+		try (var stream = new FileInputStream(encoded)) {
+			return fileEncoderService.decode(stream, output);
+		}
+	}
+}
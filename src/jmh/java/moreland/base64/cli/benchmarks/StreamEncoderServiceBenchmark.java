@@ -0,0 +1,63 @@
+package moreland.base64.cli.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import moreland.base64.cli.Base64EncoderService;
+import moreland.base64.cli.EncoderService;
+
+/**
+ * stream to stream encode and decode, {@code readSize} caps the bytes returned by each read
+ * of the source to compare behaviour behind small pipe buffers against large file reads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector", "-Xmx8g" })
+public class StreamEncoderServiceBenchmark {
+
+	@Param({ "scalar", "jdk", "swar", "vector" })
+	private String engine;
+
+	@Param({ "16", "1024", "65536", "1048576", "67108864", "1073741824" })
+	private int size;
+
+	@Param({ "512", "4096", "65536" })
+	private int readSize;
+
+	private EncoderService encoderService;
+	private byte[] source;
+	private byte[] encoded;
+
+	@Setup
+	public void setup() {
+		encoderService = new Base64EncoderService(true, engine);
+		source = BenchmarkData.randomBytes(size);
+		encoded = encoderService.encode(source);
+	}
+
+	@Benchmark
+	public boolean encodeStreamToStream() {
+		return encoderService.encode(BenchmarkData.limitReads(new ByteArrayInputStream(source), readSize), OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public boolean decodeStreamToStream() {
+		return encoderService.decode(BenchmarkData.limitReads(new ByteArrayInputStream(encoded), readSize), OutputStream.nullOutputStream());
+	}
+}
@@ -12,9 +12,22 @@
 //
 package moreland.base64.cli;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.nio.charset.StandardCharsets;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,30 +36,115 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import moreland.base64.cli.internal.ApplicationProperties;
+import moreland.base64.cli.internal.BatchInputs;
+import moreland.base64.cli.internal.Compression;
+import moreland.base64.cli.internal.ConversionStatistics;
+import moreland.base64.cli.internal.EncodedFileCache;
 import moreland.base64.cli.internal.FileEncodingConverter;
 import moreland.base64.cli.internal.FileToFileEncodingConverter;
+import moreland.base64.cli.internal.GuardAgainst;
 import moreland.base64.cli.internal.Operation;
+import moreland.base64.cli.internal.ScalarBase64Engine;
 
 @SpringBootApplication
 public class Application implements CommandLineRunner {
 
+    private static final String STATISTICS_OPTION = "--stats";
+    /**
+     * buffer between conversions and stdout, conversions write a few KB at a time and a pipe drains 64 KB per call
+     */
+    private static final int STANDARD_OUTPUT_BUFFER_SIZE = 256 * 1024;
     private Logger logger = LoggerFactory.getLogger(Application.class);
 
     private FileEncoderService fileEncoderService;
     private EncoderService encoderService;
+    private BatchEncoderService batchEncoderService;
+    private SocketEncoderService socketEncoderService;
+    private ExtractionService extractionService;
+    private OutputStream standardOutput = new FileOutputStream(FileDescriptor.out);
 
-    public Application(FileEncoderService fileEncoderService, EncoderService encoderService) {
+    public Application(FileEncoderService fileEncoderService, EncoderService encoderService,
+            BatchEncoderService batchEncoderService, SocketEncoderService socketEncoderService,
+            ExtractionService extractionService) {
         this.fileEncoderService = fileEncoderService;
         this.encoderService = encoderService;
+        this.batchEncoderService = batchEncoderService;
+        this.socketEncoderService = socketEncoderService;
+        this.extractionService = extractionService;
     }
 
-    public static void main(String[] args) {
-        SpringApplication.run(Application.class, args);
+    /**
+     * Runs without an application context unless {@code --base64.spring-context=true} is given, component scanning
+     * and auto-configuration cost far more than encoding the small inputs this CLI is usually called with
+     */
+    public static void main(String[] args) throws Exception {
+        var properties = ApplicationProperties.load(args);
+        if (properties.getBoolean("base64.spring-context", false)) {
+            SpringApplication.run(Application.class, args);
+            return;
+        }
+        createWithoutContext(properties).run(args);
     }
 
+    /**
+     * Wires the services by hand using the same properties and defaults as their {@code @Value} annotated constructors
+     */
+    static Application createWithoutContext(ApplicationProperties properties) {
+        var encoderService = new Base64EncoderService(
+            properties.getBoolean("base64.decoder.ignore-whitespace", true),
+            properties.getString("base64.engine", ScalarBase64Engine.NAME),
+            properties.getString("base64.encoder.alphabet", "standard"),
+            properties.getBoolean("base64.encoder.padding", true),
+            properties.getInt("base64.encoder.line-length", 0),
+            properties.getString("base64.encoder.line-separator", "crlf"));
+        var fileEncoderService = new CachingFileEncoderService(
+            new SimpleFileEncoderService(encoderService,
+                properties.getLong("base64.file.mapped-threshold", SimpleFileEncoderService.DEFAULT_MAPPED_THRESHOLD),
+                properties.getLong("base64.file.parallel-threshold", SimpleFileEncoderService.DEFAULT_PARALLEL_THRESHOLD),
+                properties.getInt("base64.file.pipeline-depth", 0),
+                properties.getInt("base64.file.pipeline-buffer-size", SimpleFileEncoderService.DEFAULT_PIPELINE_BUFFER_SIZE)),
+            properties.getString("base64.cache.directory", ""),
+            properties.getLong("base64.cache.max-size", CachingFileEncoderService.DEFAULT_MAX_SIZE),
+            properties.getBoolean("base64.cache.content-hash", false),
+            properties.getBoolean("base64.cache.hard-link", false));
+        var batchEncoderService = new ConcurrentBatchEncoderService(fileEncoderService,
+            properties.getInt("base64.batch.concurrency", 0));
+        var socketEncoderService = new UnixSocketEncoderService(encoderService,
+            properties.getString("base64.socket", ""));
+        var extractionService = new StreamingExtractionService(
+            properties.getString("base64.extract.format", "auto"),
+            properties.getString("base64.extract.json-path", ""),
+            properties.getString("base64.extract.xml-element", ""));
+        return new Application(fileEncoderService, encoderService, batchEncoderService, socketEncoderService, extractionService);
+    }
+
+    /**
+     * Runs the requested operation, with {@code --stats} conversion statistics are recorded and printed to stderr on completion;
+     * {@code --gzip} or {@code --deflate} compress before encoding, or decompress after decoding
+     */
     @Override
+    @SuppressWarnings({ "java:S106" })
+    public void run(String... arguments) throws Exception {
+        boolean printStatistics = Arrays.asList(arguments).contains(STATISTICS_OPTION);
+        if (printStatistics) {
+            ConversionStatistics.enable();
+        }
+        try {
+            execute(arguments);
+        } finally {
+            if (printStatistics) {
+                System.err.print(ConversionStatistics.summary());
+            }
+        }
+    }
+
     @SuppressWarnings({ "java:S2589" }) // warning doesn't yet see result from switch expression
-    public void run(String... args) throws Exception {
+    private void execute(String... arguments) {
+        // --name=value options such as --base64.engine=swar are consumed by Spring as properties
+        var args = Arrays.stream(arguments)
+            .filter(argument -> !argument.startsWith("--"))
+            .toArray(String[]::new);
         logger.info("provided arguments: {}", args.length);
 
         if (fileEncoderService == null) {
@@ -59,6 +157,13 @@ public class Application implements CommandLineRunner {
         }
 
         var operation = Operation.fromString(args[0]).orElse(Operation.UNSUPPORTED);
+        Compression compression;
+        try {
+            compression = Compression.fromArguments(arguments);
+        } catch (IllegalArgumentException e) {
+            logger.error(e.getMessage());
+            return;
+        }
 
         Optional<String> inputFilename = Optional.empty();
         Optional<String> outputFilename = Optional.empty();
@@ -69,8 +174,18 @@ public class Application implements CommandLineRunner {
             outputFilename = Optional.of(args[2]);
 
         boolean result = switch (operation) {
-            case ENCODE -> encode(inputFilename, outputFilename);
-            case DECODE -> decode(inputFilename, outputFilename);
+            case ENCODE -> compression == Compression.NONE
+                ? encode(inputFilename, outputFilename)
+                : forward(inputFilename, outputFilename, (source, destination) -> encoderService.encode(source, destination, compression));
+            case DECODE -> compression == Compression.NONE
+                ? decode(inputFilename, outputFilename)
+                : forward(inputFilename, outputFilename, (source, destination) -> encoderService.decode(source, destination, compression));
+            case BATCH_ENCODE -> batch(inputFilename, outputFilename, batchEncoderService::encode);
+            case BATCH_DECODE -> batch(inputFilename, outputFilename, batchEncoderService::decode);
+            case ENCODE_INCREMENTAL -> encodeIncremental(inputFilename, outputFilename);
+            case VERIFY -> verify(inputFilename);
+            case EXTRACT -> extract(inputFilename, outputFilename);
+            case SERVE -> serve(inputFilename);
             case UNSUPPORTED -> false;
             default -> throw new IllegalStateException("Unsupported Operation");
         };
@@ -81,18 +196,28 @@ public class Application implements CommandLineRunner {
     }
 
     private boolean encode(final Optional<String> inputFilename, final Optional<String> outputFilename) {
+        var socketPath = socketEncoderService.socketPath();
+        if (socketPath.isPresent()) {
+            return forward(inputFilename, outputFilename,
+                (source, destination) -> socketEncoderService.encode(socketPath.get(), source, destination));
+        }
         return process(inputFilename, outputFilename, this::encodeFromFileToFile, this::encodeFromFile,
                 this::encodeFromStandardInputToFile, this::encodeFromStandardInputToStandardOutput);
     }
 
     private boolean decode(final Optional<String> inputFilename, final Optional<String> outputFilename) {
+        var socketPath = socketEncoderService.socketPath();
+        if (socketPath.isPresent()) {
+            return forward(inputFilename, outputFilename,
+                (source, destination) -> socketEncoderService.decode(socketPath.get(), source, destination));
+        }
         return process(inputFilename, outputFilename, this::decodeFromFileToFile, this::decodeFromFile,
                 this::decodeFromStandardInputToFile, this::decodeFromStandardInputToStandardOutput);
     }
 
     private boolean process(final Optional<String> inputFilename, final Optional<String> outputFilename,
             FileToFileEncodingConverter fileToFile, FileEncodingConverter fromFileEncodingConverter,
-            FileEncodingConverter toFileEncodingConverter, Runnable encodingConverter) {
+            FileEncodingConverter toFileEncodingConverter, BooleanSupplier encodingConverter) {
 
         if (inputFilename.isPresent()) {
             if (outputFilename.isPresent()) {
@@ -103,19 +228,152 @@ public class Application implements CommandLineRunner {
         } else if (outputFilename.isPresent()) {
             return toFileEncodingConverter.process(outputFilename.get());
         } else {
-            encodingConverter.run();
+            return encodingConverter.getAsBoolean();
+        }
+    }
+
+    /**
+     * Streams the input file or stdin through {@code converter} to the output file or stdout, used as the client side
+     * of {@code serve} and for compressed conversions, which always run in this process
+     */
+    @SuppressWarnings({ "java:S106" })
+    private boolean forward(final Optional<String> inputFilename, final Optional<String> outputFilename,
+            BiPredicate<InputStream, OutputStream> converter) {
+        try (   var inputFile = inputFilename.isPresent() ? Files.newInputStream(Path.of(inputFilename.get())) : null;
+                var outputFile = outputFilename.isPresent() ? newOutputFile(outputFilename.get()) : null) {
+
+            var input = inputFile != null ? inputFile : System.in;
+            return outputFile != null
+                ? converter.test(input, outputFile)
+                : writeToStandardOutput(output -> converter.test(input, output));
+
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Opens {@code filename} for writing, first removing it if it is hard linked to a cache entry
+     */
+    private static OutputStream newOutputFile(final String filename) throws IOException {
+        var path = Path.of(filename);
+        EncodedFileCache.unlinkShared(path);
+        return Files.newOutputStream(path);
+    }
+
+    private boolean encodeIncremental(final Optional<String> inputFilename, final Optional<String> outputFilename) {
+        if (!inputFilename.isPresent() || !outputFilename.isPresent()) {
+            logger.error("encode_incremental requires an input and an output file");
             return false;
         }
+        return fileEncoderService.encodeIncremental(new File(inputFilename.get()), new File(outputFilename.get()));
     }
 
+    /**
+     * Checks the input file or stdin is valid base64 without decoding it, printing the decoded length
+     * or the offset of the first error
+     */
     @SuppressWarnings({ "java:S106" })
-    private boolean encodeFromFile(final String inputFilename) {
-        var encoded = fileEncoderService.encode(new File(inputFilename));
-        if (!encoded.isPresent())
+    private boolean verify(final Optional<String> inputFilename) {
+        var validation = inputFilename.isPresent()
+            ? fileEncoderService.validate(new File(inputFilename.get()))
+            : encoderService.validate(System.in);
+        if (!validation.isPresent()) {
+            return false;
+        }
+
+        var result = validation.get();
+        if (result.valid()) {
+            System.out.printf("valid, %d decoded bytes%n", result.decodedLength());
+        } else {
+            System.out.printf("invalid at offset %d, %s%n", result.errorOffset(), result.error());
+        }
+        return result.valid();
+    }
+
+    /**
+     * Decodes every Base64 payload embedded in the input file or stdin to its own file in the output directory,
+     * by default the input's directory, printing a line per payload followed by a summary
+     */
+    @SuppressWarnings({ "java:S106" })
+    private boolean extract(final Optional<String> inputFilename, final Optional<String> outputDirectory) {
+        var input = inputFilename.map(File::new);
+        var directory = outputDirectory.map(Path::of)
+            .orElseGet(() -> input.map(file -> file.getAbsoluteFile().getParentFile().toPath()).orElse(Path.of("")));
+        var spans = input.isPresent()
+            ? extractionService.extract(input.get(), directory)
+            : extractionService.extract(System.in, directory, "stdin");
+        if (!spans.isPresent()) {
             return false;
+        }
 
-        System.out.println(encoded.get());
-        return encoded.isPresent();
+        long failed = 0;
+        long bytes = 0;
+        for (var span : spans.get()) {
+            if (span.success()) {
+                System.out.printf("%-4s %s at %d -> %s (%d bytes)%n", "OK", span.kind(), span.offset(), span.output(), span.decodedLength());
+            } else {
+                System.out.printf("%-4s %s at %d, %s%n", "FAIL", span.kind(), span.offset(), span.error());
+            }
+            failed += span.success() ? 0 : 1;
+            bytes += span.decodedLength();
+        }
+        System.out.printf("%d payloads, %d extracted, %d failed, %d bytes%n",
+            spans.get().size(), spans.get().size() - failed, failed, bytes);
+
+        return failed == 0;
+    }
+
+    private boolean serve(final Optional<String> socketPath) {
+        var path = socketPath.map(Path::of).or(socketEncoderService::socketPath);
+        if (!path.isPresent()) {
+            logger.error("serve requires a socket path argument or the base64.socket property");
+            return false;
+        }
+        return socketEncoderService.serve(path.get());
+    }
+
+    /**
+     * Converts every file named by {@code inputSpecification}, a directory, glob or {@code @manifest},
+     * printing a line per file followed by a summary
+     */
+    @SuppressWarnings({ "java:S106" })
+    private boolean batch(final Optional<String> inputSpecification, final Optional<String> outputDirectory,
+            BiFunction<List<Path>, Path, List<BatchEncoderService.Result>> processor) {
+        if (!inputSpecification.isPresent()) {
+            logger.error("Batch operations require a directory, glob or @manifest");
+            return false;
+        }
+
+        List<Path> inputs;
+        try {
+            inputs = BatchInputs.resolve(inputSpecification.get());
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+
+        long start = System.nanoTime();
+        var results = processor.apply(inputs, outputDirectory.map(Path::of).orElse(null));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long failed = 0;
+        long bytes = 0;
+        for (var result : results) {
+            System.out.printf("%-4s %s -> %s (%d bytes, %d ms)%n", result.success() ? "OK" : "FAIL",
+                result.input(), result.output(), result.inputSize(), result.elapsedMillis());
+            failed += result.success() ? 0 : 1;
+            bytes += result.inputSize();
+        }
+        System.out.printf("%d files, %d succeeded, %d failed, %d bytes in %d ms%n",
+            results.size(), results.size() - failed, failed, bytes, elapsedMillis);
+
+        return failed == 0;
+    }
+
+    private boolean encodeFromFile(final String inputFilename) {
+        return writeToStandardOutput(output -> fileEncoderService.encode(new File(inputFilename), output));
     }
 
     private boolean encodeFromFileToFile(final String inputFilename, final String outputFilename) {
@@ -127,18 +385,11 @@ public class Application implements CommandLineRunner {
     }
     @SuppressWarnings({"java:S106"})
     private boolean encodeFromStandardInputToStandardOutput() {
-        return encoderService.encode(System.in, System.out);
+        return writeToStandardOutput(output -> encoderService.encode(System.in, output));
     }
 
-    @SuppressWarnings({"java:S106"})
     private boolean decodeFromFile(final String inputFilename) {
-        var decoded = fileEncoderService.decode(new File(inputFilename));
-        if (!decoded.isPresent())
-            return false;
-
-        var decodedString = new String(decoded.get(), StandardCharsets.UTF_8);
-        System.out.println(decodedString);
-        return true;
+        return writeToStandardOutput(output -> fileEncoderService.decode(new File(inputFilename), output));
     }
     private boolean decodeFromFileToFile(final String inputFilename, final String outputFilename) {
         return fileEncoderService.decode(new File(inputFilename), new File(outputFilename));
@@ -148,7 +399,29 @@ public class Application implements CommandLineRunner {
     }
     @SuppressWarnings({ "java:S106" })
     private boolean decodeFromStandardInputToStandardOutput() {
-        return encoderService.decode(System.in, System.out);
+        return writeToStandardOutput(output -> encoderService.decode(System.in, output));
+    }
+
+    /**
+     * Replaces the stdout file descriptor as the destination of conversions written to stdout, lines printed
+     * by operations such as {@code verify} still go to {@link System#out}
+     * @param standardOutput receives converted bytes, never closed
+     */
+    void setStandardOutput(OutputStream standardOutput) {
+        GuardAgainst.argumentBeingNull(standardOutput, "standardOutput");
+        this.standardOutput = standardOutput;
+    }
+
+    /**
+     * Streams {@code converter}'s output straight to the stdout file descriptor, bypassing {@link System#out}
+     * so binary output is written unchanged and memory use doesn't depend on the size of the input
+     */
+    @SuppressWarnings({ "java:S106", "java:S2095" })
+    private boolean writeToStandardOutput(Predicate<OutputStream> converter) {
+        System.out.flush();
+        // not closed, the descriptor stays open for anything printed afterwards; converters flush on success
+        var output = new BufferedOutputStream(standardOutput, STANDARD_OUTPUT_BUFFER_SIZE);
+        return converter.test(output);
     }
 
 }
@@ -12,30 +12,139 @@
 //
 package moreland.base64.cli;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Flow;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import moreland.base64.cli.internal.Base64Codec;
+import moreland.base64.cli.internal.Base64Engine;
+import moreland.base64.cli.internal.Base64FormatException;
+import moreland.base64.cli.internal.Base64Variant;
+import moreland.base64.cli.internal.Compression;
+import moreland.base64.cli.internal.ConversionStatistics;
+import moreland.base64.cli.internal.DecodingFlowProcessor;
+import moreland.base64.cli.internal.DecodingInputStream;
+import moreland.base64.cli.internal.EncodingFlowProcessor;
+import moreland.base64.cli.internal.EncodingOutputStream;
 import moreland.base64.cli.internal.GuardAgainst;
+import moreland.base64.cli.internal.OperationStatistics;
+import moreland.base64.cli.internal.ScalarBase64Engine;
+import moreland.base64.cli.internal.ScratchBuffers;
+import moreland.base64.cli.internal.StreamingDecoder;
+import moreland.base64.cli.internal.TimedStreams;
 
 @Service("encoderService")
 @Scope(value = BeanDefinition.SCOPE_SINGLETON)
 public class Base64EncoderService implements EncoderService {
 
     private static final String SOURCE_ARGUMENT_NAME = "source";
-    private static final int ENCODE_BUFFER_SIZE = 3 * 1024;
-    private static final int DECODE_BUFFER_SIZE = 4 * 1024;
+    private static final String DESTINATION_ARGUMENT_NAME = "destination";
+    private static final String ENCODE_BYTES_OPERATION = "encode.bytes";
+    private static final String DECODE_BYTES_OPERATION = "decode.bytes";
+    private static final String DECODE_CHARS_OPERATION = "decode.chars";
+    private static final String ENCODE_STREAM_OPERATION = "encode.stream";
+    private static final String DECODE_STREAM_OPERATION = "decode.stream";
+    private static final String VALIDATE_STREAM_OPERATION = "validate.stream";
     private Logger logger = LoggerFactory.getLogger(Base64EncoderService.class);
+    private final boolean ignoreWhitespace;
+    private final Base64Engine engine;
+    private final Base64Variant variant;
+    private final int encodeBlockSize;
+
+    public Base64EncoderService() {
+        this(true);
+    }
+
+    public Base64EncoderService(boolean ignoreWhitespace) {
+        this(ignoreWhitespace, new ScalarBase64Engine());
+    }
+
+    /**
+     * @param ignoreWhitespace if true whitespace and line breaks in streamed input are
+     *        skipped while decoding; otherwise they are treated as illegal characters
+     * @param engine name of the {@link Base64Engine} performing the block encoding and decoding
+     */
+    public Base64EncoderService(boolean ignoreWhitespace, String engine) {
+        this(ignoreWhitespace, Base64Engine.named(engine));
+    }
+
+    /**
+     * @param ignoreWhitespace if true whitespace and line breaks in streamed input are
+     *        skipped while decoding; otherwise they are treated as illegal characters
+     * @param engine name of the {@link Base64Engine} performing the block encoding and decoding, {@code scalar} by
+     *        default which unlike {@link java.util.Base64#getDecoder()} decodes either alphabet, even mixed;
+     *        {@code jdk} rejects mixed alphabets
+     * @param alphabet {@code standard} or {@code url-safe} alphabet of encoded output
+     * @param padding if true encoded output is padded to a multiple of 4 characters
+     * @param lineLength characters per line of encoded output, 0 for a single line or 76 for MIME
+     * @param lineSeparator {@code crlf} or {@code lf} separating lines of encoded output
+     */
+    @Autowired
+    public Base64EncoderService(@Value("${base64.decoder.ignore-whitespace:true}") boolean ignoreWhitespace,
+            @Value("${base64.engine:" + ScalarBase64Engine.NAME + "}") String engine,
+            @Value("${base64.encoder.alphabet:standard}") String alphabet,
+            @Value("${base64.encoder.padding:true}") boolean padding,
+            @Value("${base64.encoder.line-length:0}") int lineLength,
+            @Value("${base64.encoder.line-separator:crlf}") String lineSeparator) {
+        this(ignoreWhitespace, Base64Engine.named(engine), Base64Variant.named(alphabet, padding, lineLength, lineSeparator));
+    }
+
+    /**
+     * @param ignoreWhitespace if true whitespace and line breaks in streamed input are
+     *        skipped while decoding; otherwise they are treated as illegal characters
+     * @param engine engine performing the block encoding and decoding
+     */
+    public Base64EncoderService(boolean ignoreWhitespace, Base64Engine engine) {
+        this(ignoreWhitespace, engine, Base64Variant.BASIC);
+    }
+
+    /**
+     * @param ignoreWhitespace if true whitespace and line breaks in streamed input are
+     *        skipped while decoding; otherwise they are treated as illegal characters
+     * @param engine engine performing the block encoding and decoding
+     * @param variant form of all encoded output
+     */
+    public Base64EncoderService(boolean ignoreWhitespace, Base64Engine engine, Base64Variant variant) {
+        GuardAgainst.argumentBeingNull(engine, "engine");
+        GuardAgainst.argumentBeingNull(variant, "variant");
+        this.ignoreWhitespace = ignoreWhitespace;
+        this.engine = engine;
+        this.variant = variant;
+        this.encodeBlockSize = variant.maxSourceLength(ScratchBuffers.BUFFER_SIZE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Base64Variant variant() {
+        return variant;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EncoderService withVariant(Base64Variant variant) {
+        return new Base64EncoderService(ignoreWhitespace, engine, variant);
+    }
 
     /**
      * {@inheritDoc}
@@ -44,7 +153,14 @@ public class Base64EncoderService implements EncoderService {
     public byte[] encode(byte[] source) {
         GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
 
-        return Base64.getEncoder().encode(source);
+        var sample = ConversionStatistics.begin(ENCODE_BYTES_OPERATION);
+        long mark = sample.mark();
+        var encoded = new byte[encodedLength(source.length)];
+        variant.encode(engine, source, 0, source.length, encoded, 0, 0, true);
+        sample.codec(mark);
+        sample.chunk(source.length, encoded.length);
+        sample.complete(true);
+        return encoded;
     }
 
     /**
@@ -54,11 +170,50 @@ public class Base64EncoderService implements EncoderService {
     public byte[] encode(Stream<Byte> source) {
         GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
 
-        var sourceArray = source.toArray(Byte[]::new);
-        var convertedSourceArray = new byte[sourceArray.length];
-        System.arraycopy(sourceArray, 0, convertedSourceArray, 0, sourceArray.length);
+        var encoded = new ByteArrayOutputStream();
+        try (var scratch = ScratchBuffers.acquire()) {
+            var buffer = scratch.input();
+            var output = scratch.output();
+            int pending = 0;
+            long position = 0;
+
+            var iterator = source.iterator();
+            while (iterator.hasNext()) {
+                buffer[pending++] = iterator.next();
+                if (pending == encodeBlockSize) {
+                    encoded.write(output, 0, variant.encode(engine, buffer, 0, pending, output, 0, position, false));
+                    position += pending;
+                    pending = 0;
+                }
+            }
+            encoded.write(output, 0, variant.encode(engine, buffer, 0, pending, output, 0, position, true));
+        }
+        return encoded.toByteArray();
+    }
 
-        return encode(convertedSourceArray);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
+        GuardAgainst.argumentBeingNull(destination, DESTINATION_ARGUMENT_NAME);
+        Objects.checkFromIndexSize(offset, length, source.length);
+        Objects.checkFromIndexSize(destinationOffset, encodedLength(length), destination.length);
+
+        return variant.encode(engine, source, offset, length, destination, destinationOffset, 0, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int encodedLength(int sourceLength) {
+        long length = variant.encodedLength(sourceLength);
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("sourceLength");
+        }
+        return (int) length;
     }
 
     /**
@@ -68,25 +223,106 @@ public class Base64EncoderService implements EncoderService {
     public byte[] encode(InputStream streamSource) {
         GuardAgainst.argumentBeingNull(streamSource, "streamSource");
 
-        var buffer = new byte[ENCODE_BUFFER_SIZE];
-        var builder = new StringBuilder();
+        var encoded = new ByteArrayOutputStream();
+        return encode(streamSource, encoded)
+            ? encoded.toByteArray()
+            : new byte[0];
+    }
 
-        try {
-            while (streamSource.available() > 0) {
-                int read;
-                if ((read = streamSource.read(buffer)) <= 0)
-                    break;
-                if (read == buffer.length) {
-                    builder.append(encode(buffer));
-                } else {
-                    builder.append(encode(Arrays.copyOf(buffer, read)));
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CoderResult encode(ByteBuffer source, ByteBuffer destination) {
+        return encode(source, destination, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CoderResult encode(ByteBuffer source, ByteBuffer destination, boolean endOfInput) {
+        return encode(source, destination, 0, endOfInput);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CoderResult encode(ByteBuffer source, ByteBuffer destination, long sourcePosition, boolean endOfInput) {
+        GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
+        GuardAgainst.argumentBeingNull(destination, DESTINATION_ARGUMENT_NAME);
+
+        return variant.encode(source, destination, sourcePosition, endOfInput);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String encode(String source) {
+        return encode(source, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String encode(String source, Charset charset) {
+        GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
+        GuardAgainst.argumentBeingNull(charset, "charset");
+        return encodeToString(source.getBytes(charset));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String encodeToString(byte[] source) {
+        // encoded output is always ascii, so the String copies it once and stores it compactly
+        return new String(encode(source), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean encode(InputStream inputStream, OutputStream outputStream) {
+        GuardAgainst.argumentBeingNull(inputStream, "inputStream");
+        GuardAgainst.argumentBeingNull(outputStream, "outputStream");
+
+        var sample = ConversionStatistics.begin(ENCODE_STREAM_OPERATION);
+        try (var scratch = ScratchBuffers.acquire()) {
+            var buffer = scratch.input();
+            var encoded = scratch.output();
+            int pending = 0;
+            long position = 0;
+            long mark = sample.mark();
+
+            // blocks are only encoded once full so every block but the last is a multiple of 3 bytes,
+            // short reads (pipes, sockets) simply leave the remainder in place for the next read
+            int read;
+            while ((read = inputStream.read(buffer, pending, encodeBlockSize - pending)) != -1) {
+                mark = sample.io(mark);
+                pending += read;
+                if (pending == encodeBlockSize) {
+                    mark = writeEncoded(buffer, pending, position, false, encoded, outputStream, sample, mark);
+                    position += pending;
+                    pending = 0;
                 }
             }
+            if (pending > 0) {
+                mark = writeEncoded(buffer, pending, position, true, encoded, outputStream, sample, mark);
+            }
+            outputStream.flush();
+            sample.io(mark);
+            sample.complete(true);
+            return true;
 
-            return builder.toString().getBytes();
         } catch (Exception e) {
             logger.error(e.getMessage());
-            return new byte[0];
+            sample.complete(false);
+            return false;
         }
     }
 
@@ -94,27 +330,122 @@ public class Base64EncoderService implements EncoderService {
      * {@inheritDoc}
      */
     @Override
-    public String encode(String source) {
+    public boolean encode(InputStream inputStream, OutputStream outputStream, Compression compression) {
+        GuardAgainst.argumentBeingNull(inputStream, "inputStream");
+        GuardAgainst.argumentBeingNull(outputStream, "outputStream");
+        GuardAgainst.argumentBeingNull(compression, "compression");
+        if (compression == Compression.NONE) {
+            return encode(inputStream, outputStream);
+        }
+
+        var sample = ConversionStatistics.begin(ENCODE_STREAM_OPERATION + "." + compression.name().toLowerCase());
+        try (var scratch = ScratchBuffers.acquire()) {
+            // reads, compression, encoding and writes are interleaved, so the streams at either end are timed
+            var timed = new TimedStreams(sample);
+            var encoder = new EncodingOutputStream(timed.output(outputStream), engine, variant, scratch.input(), scratch.output());
+            var compressor = compression.compress(encoder);
+
+            long read = timed.input(inputStream).transferTo(compressor);
+            compressor.finish();
+            encoder.finish();
+
+            timed.finish();
+            sample.bytes(read, encoder.written());
+            sample.complete(true);
+            return true;
+
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            sample.complete(false);
+            return false;
+        }
+    }
+
+    private long writeEncoded(byte[] buffer, int length, long position, boolean endOfInput, byte[] encoded,
+            OutputStream outputStream, OperationStatistics.Sample sample, long mark) throws IOException {
+        int count = variant.encode(engine, buffer, 0, length, encoded, 0, position, endOfInput);
+        mark = sample.codec(mark);
+        outputStream.write(encoded, 0, count);
+        sample.chunk(length, count);
+        return sample.io(mark);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] decode(String source) {
         GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
-        return new String(encode(source.getBytes()), StandardCharsets.UTF_8);
+
+        // the scalar engine decodes with the same table as the character path, which needs no byte copy
+        return engine instanceof ScalarBase64Engine
+            ? decode((CharSequence) source)
+            : decode(source.getBytes(StandardCharsets.ISO_8859_1));
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public boolean encode(InputStream inputStream, OutputStream outputStream) {
-        return mapStream(inputStream, outputStream, (byte[] source) -> encode(source));
+    public byte[] decode(CharSequence source) {
+        GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
+
+        var sample = ConversionStatistics.begin(DECODE_CHARS_OPERATION);
+        boolean success = false;
+        try {
+            long mark = sample.mark();
+            var decoded = new byte[Base64Codec.decodedLength(source, 0, source.length())];
+            Base64Codec.decode(source, 0, source.length(), decoded, 0);
+            sample.codec(mark);
+            sample.chunk(source.length(), decoded.length);
+            success = true;
+            return decoded;
+        } finally {
+            sample.complete(success);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] decode(char[] source, int offset, int length) {
+        GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
+        Objects.checkFromIndexSize(offset, length, source.length);
+
+        var sample = ConversionStatistics.begin(DECODE_CHARS_OPERATION);
+        boolean success = false;
+        try {
+            long mark = sample.mark();
+            var decoded = new byte[Base64Codec.decodedLength(source, offset, length)];
+            Base64Codec.decode(source, offset, length, decoded, 0);
+            sample.codec(mark);
+            sample.chunk(length, decoded.length);
+            success = true;
+            return decoded;
+        } finally {
+            sample.complete(success);
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CoderResult decode(ByteBuffer source, ByteBuffer destination) {
+        return decode(source, destination, true);
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public byte[] decode(String source) {
+    public CoderResult decode(ByteBuffer source, ByteBuffer destination, boolean endOfInput) {
         GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
-        return Base64.getDecoder().decode(source);
+        GuardAgainst.argumentBeingNull(destination, DESTINATION_ARGUMENT_NAME);
+
+        return Base64Codec.decode(source, destination, endOfInput);
     }
 
     /**
@@ -122,8 +453,18 @@ public class Base64EncoderService implements EncoderService {
      */
     @Override
     public String decodeToString(String source) {
+        return decodeToString(source, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String decodeToString(CharSequence source, Charset charset) {
         GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
-        return new String(decode(source), StandardCharsets.UTF_8);
+        GuardAgainst.argumentBeingNull(charset, "charset");
+
+        return new String(source instanceof String text ? decode(text) : decode(source), charset);
     }
     
     /**
@@ -133,30 +474,10 @@ public class Base64EncoderService implements EncoderService {
     public byte[] decode(InputStream source) {
         GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
 
-        var buffer = new byte[DECODE_BUFFER_SIZE];
-        var byteList = new ArrayList<Byte>();
-
-        try {
-            while (source.available() > 0) {
-                int read;
-                if ((read = source.read(buffer)) <= 0)
-                    break;
-                for (int i=0; i< read; i++) {
-                    byteList.add(buffer[i]);
-                }
-            }
-
-            var bytes = new byte[byteList.size()];
-            for (int i=0, size = byteList.size(); i< size; i++) {
-                bytes[i] = byteList.get(i);
-            }
-
-            return bytes;
-
-        } catch (Exception e) {
-            logger.error(e.getMessage());
-            return new byte[0];
-        }
+        var decoded = new ByteArrayOutputStream();
+        return decode(source, decoded)
+            ? decoded.toByteArray()
+            : new byte[0];
     }
 
     @Override
@@ -170,39 +491,179 @@ public class Base64EncoderService implements EncoderService {
     @Override
     public byte[] decode(byte[] source) {
         GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
-        return Base64.getDecoder().decode(source);
+
+        var sample = ConversionStatistics.begin(DECODE_BYTES_OPERATION);
+        boolean success = false;
+        try {
+            long mark = sample.mark();
+            var decoded = new byte[Base64Codec.decodedLength(source, 0, source.length)];
+            engine.decode(source, 0, source.length, decoded, 0);
+            sample.codec(mark);
+            sample.chunk(source.length, decoded.length);
+            success = true;
+            return decoded;
+        } finally {
+            sample.complete(success);
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
-    public boolean decode(InputStream inputStream, OutputStream outputStream) {
-        return mapStream(inputStream, outputStream, (byte[] source) -> decode(source));
+    public int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
+        GuardAgainst.argumentBeingNull(destination, DESTINATION_ARGUMENT_NAME);
+        Objects.checkFromIndexSize(offset, length, source.length);
+        Objects.checkFromIndexSize(destinationOffset, decodedLength(source, offset, length), destination.length);
+
+        return engine.decode(source, offset, length, destination, destinationOffset);
     }
 
-    @FunctionalInterface
-    private interface Base64StreamMapper {
-        byte[] map(byte[] source);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int decodedLength(byte[] source, int offset, int length) {
+        GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
+        Objects.checkFromIndexSize(offset, length, source.length);
+
+        return Base64Codec.decodedLength(source, offset, length);
     }
 
-    private boolean mapStream(InputStream inputStream, OutputStream outputStream, Base64StreamMapper mapper) {
+    @Override
+    public boolean decode(InputStream inputStream, OutputStream outputStream) {
         GuardAgainst.argumentBeingNull(inputStream, "inputStream");
         GuardAgainst.argumentBeingNull(outputStream, "outputStream");
 
-        var buffer = new byte[DECODE_BUFFER_SIZE];
-        try {
+        var sample = ConversionStatistics.begin(DECODE_STREAM_OPERATION);
+        try (var scratch = ScratchBuffers.acquire()) {
+            var decoder = scratch.decoder(ignoreWhitespace, engine);
+            var buffer = scratch.input();
+            var decoded = scratch.output();
+            long mark = sample.mark();
+
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                mark = sample.io(mark);
+                int count = decoder.decode(buffer, 0, read, decoded, 0);
+                mark = sample.codec(mark);
+                outputStream.write(decoded, 0, count);
+                mark = sample.io(mark);
+                sample.chunk(read, count);
+            }
+            int count = decoder.finish(decoded, 0);
+            outputStream.write(decoded, 0, count);
+            outputStream.flush();
+            sample.io(mark);
+            sample.bytes(0, count);
+            sample.complete(true);
+            return true;
 
-            while (inputStream.available() > 0) {
-                int read;
-                if ((read = inputStream.read(buffer)) <= 0)
-                    break;
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            sample.complete(false);
+            return false;
+        }
+    }
 
-                outputStream.write(mapper.map(buffer), 0, read);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean decode(InputStream inputStream, OutputStream outputStream, Compression compression) {
+        GuardAgainst.argumentBeingNull(inputStream, "inputStream");
+        GuardAgainst.argumentBeingNull(outputStream, "outputStream");
+        GuardAgainst.argumentBeingNull(compression, "compression");
+        if (compression == Compression.NONE) {
+            return decode(inputStream, outputStream);
+        }
+
+        var sample = ConversionStatistics.begin(DECODE_STREAM_OPERATION + "." + compression.name().toLowerCase());
+        try (var scratch = ScratchBuffers.acquire()) {
+            var timed = new TimedStreams(sample);
+            var decoder = new DecodingInputStream(timed.input(inputStream), scratch.decoder(ignoreWhitespace, engine),
+                scratch.input(), scratch.output());
+            try (var decompressor = compression.decompress(decoder)) {
+                var destination = timed.output(outputStream);
+                long written = decompressor.transferTo(destination);
+                destination.flush();
+
+                timed.finish();
+                sample.bytes(decoder.consumed(), written);
             }
-            outputStream.flush();
+            sample.complete(true);
             return true;
 
         } catch (Exception e) {
             logger.error(e.getMessage());
+            sample.complete(false);
             return false;
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Validation> validate(InputStream source) {
+        GuardAgainst.argumentBeingNull(source, SOURCE_ARGUMENT_NAME);
+
+        var sample = ConversionStatistics.begin(VALIDATE_STREAM_OPERATION);
+        try (var scratch = ScratchBuffers.acquire()) {
+            var decoder = scratch.decoder(ignoreWhitespace, engine);
+            var buffer = scratch.input();
+            long mark = sample.mark();
+            long consumed = 0;
+            long decodedLength = 0;
+
+            try {
+                int read;
+                while ((read = source.read(buffer)) != -1) {
+                    mark = sample.io(mark);
+                    decodedLength += decoder.measure(buffer, 0, read);
+                    mark = sample.codec(mark);
+                    consumed += read;
+                }
+                decodedLength += decoder.finish();
+            } catch (Base64FormatException e) {
+                sample.bytes(consumed, 0);
+                sample.complete(true);
+                return Optional.of(Validation.failure(decodedLength, e));
+            }
+            sample.codec(mark);
+            sample.bytes(consumed, 0);
+            sample.complete(true);
+            return Optional.of(Validation.success(decodedLength));
+
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            sample.complete(false);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingDecoder createDecoder() {
+        return new StreamingDecoder(ignoreWhitespace, engine);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flow.Processor<ByteBuffer, ByteBuffer> encodingProcessor(int chunkSize) {
+        return new EncodingFlowProcessor(variant, chunkSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flow.Processor<ByteBuffer, ByteBuffer> decodingProcessor(int chunkSize) {
+        return new DecodingFlowProcessor(createDecoder(), chunkSize);
+    }
 }
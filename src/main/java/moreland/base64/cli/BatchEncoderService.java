@@ -0,0 +1,48 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public interface BatchEncoderService {
+
+    /**
+     * Outcome of converting a single file within a batch
+     * @param input file read
+     * @param output file written
+     * @param success true if the conversion succeeded
+     * @param inputSize size of {@code input} in bytes
+     * @param elapsedMillis time taken converting {@code input}
+     */
+    record Result(Path input, Path output, boolean success, long inputSize, long elapsedMillis) {
+    }
+
+    /**
+     * Encode each of {@code inputs} concurrently
+     * @param inputs files to encode
+     * @param outputDirectory directory encoded files are written to, named after their input
+     *        with a {@code .b64} suffix; if null each is written alongside its input
+     * @return a result per input, in the same order as {@code inputs}
+     */
+    List<Result> encode(List<Path> inputs, Path outputDirectory);
+
+    /**
+     * Decode each of {@code inputs} concurrently
+     * @param inputs files to decode
+     * @param outputDirectory directory decoded files are written to, named after their input
+     *        less any {@code .b64} suffix; if null each is written alongside its input
+     * @return a result per input, in the same order as {@code inputs}
+     */
+    List<Result> decode(List<Path> inputs, Path outputDirectory);
+}
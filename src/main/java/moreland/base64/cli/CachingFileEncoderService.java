@@ -0,0 +1,172 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+import moreland.base64.cli.internal.Base64Variant;
+import moreland.base64.cli.internal.ConversionStatistics;
+import moreland.base64.cli.internal.EncodedFileCache;
+import moreland.base64.cli.internal.GuardAgainst;
+
+/**
+ * Serves file to file encodes of unchanged inputs from an {@link EncodedFileCache} when {@code base64.cache.directory}
+ * is set, every other call, and every call when no directory is set, is passed straight to the wrapped service
+ */
+@Primary
+@Service("cachingFileEncoderService")
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class CachingFileEncoderService implements FileEncoderService {
+
+    static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+    private final FileEncoderService fileEncoderService;
+    private final Optional<EncodedFileCache> cache;
+    private Logger logger = LoggerFactory.getLogger(CachingFileEncoderService.class);
+
+    public CachingFileEncoderService(FileEncoderService fileEncoderService) {
+        this(fileEncoderService, "", DEFAULT_MAX_SIZE, false, false);
+    }
+
+    /**
+     * @param fileEncoderService service performing conversions that can't be served from the cache
+     * @param directory cache directory, blank to disable caching
+     * @param maxSize total size of cached outputs in bytes before least recently used entries are evicted
+     * @param contentHash if true entries are keyed on file contents rather than path, size and modification time
+     * @param hardLink if true cache hits are hard linked rather than copied to their destination
+     */
+    @Autowired
+    public CachingFileEncoderService(@Qualifier("fileEncoderService") FileEncoderService fileEncoderService,
+            @Value("${base64.cache.directory:}") String directory,
+            @Value("${base64.cache.max-size:" + DEFAULT_MAX_SIZE + "}") long maxSize,
+            @Value("${base64.cache.content-hash:false}") boolean contentHash,
+            @Value("${base64.cache.hard-link:false}") boolean hardLink) {
+        GuardAgainst.argumentBeingNull(fileEncoderService, "fileEncoderService");
+        GuardAgainst.argumentBeingNull(directory, "directory");
+        this.fileEncoderService = fileEncoderService;
+        this.cache = directory.isBlank()
+            ? Optional.empty()
+            : Optional.of(new EncodedFileCache(Path.of(directory), maxSize, contentHash, hardLink));
+    }
+
+    @Override
+    public Base64Variant variant() {
+        return fileEncoderService.variant();
+    }
+
+    @Override
+    public Optional<byte[]> encode(File file) {
+        return fileEncoderService.encode(file);
+    }
+
+    @Override
+    public Optional<byte[]> decode(File file) {
+        return fileEncoderService.decode(file);
+    }
+
+    /**
+     * Copies the cached output for {@code inputFile} if there is one, otherwise encodes it and caches the result;
+     * cache failures are logged and fall back to encoding
+     */
+    @Override
+    public boolean encode(File inputFile, File outputFile) {
+        if (cache.isEmpty() || !inputFile.isFile()) {
+            return fileEncoderService.encode(inputFile, outputFile);
+        }
+
+        String key;
+        try {
+            var sample = ConversionStatistics.begin("encode.file.cached");
+            key = cache.get().key(inputFile.toPath(), fileEncoderService.variant());
+            if (cache.get().retrieve(key, outputFile.toPath())) {
+                sample.bytes(inputFile.length(), outputFile.length());
+                sample.complete(true);
+                return true;
+            }
+        } catch (IOException e) {
+            logger.warn(e.getMessage());
+            return fileEncoderService.encode(inputFile, outputFile);
+        }
+
+        if (!fileEncoderService.encode(inputFile, outputFile)) {
+            return false;
+        }
+        try {
+            cache.get().store(key, outputFile.toPath());
+        } catch (IOException e) {
+            logger.warn(e.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<SeekableByteChannel> openDecoded(File file) {
+        return fileEncoderService.openDecoded(file);
+    }
+
+    @Override
+    public Optional<byte[]> decodeRange(File file, long offset, int length) {
+        return fileEncoderService.decodeRange(file, offset, length);
+    }
+
+    @Override
+    public Optional<EncoderService.Validation> validate(File file) {
+        return fileEncoderService.validate(file);
+    }
+
+    @Override
+    public boolean encodeIncremental(File inputFile, File outputFile) {
+        return fileEncoderService.encodeIncremental(inputFile, outputFile);
+    }
+
+    @Override
+    public boolean decode(File inputFile, File outputFile) {
+        return fileEncoderService.decode(inputFile, outputFile);
+    }
+
+    @Override
+    public boolean encode(InputStream source, File destination) {
+        return fileEncoderService.encode(source, destination);
+    }
+
+    @Override
+    public boolean decode(InputStream source, File destination) {
+        return fileEncoderService.decode(source, destination);
+    }
+
+    @Override
+    public boolean encode(File source, OutputStream destination) {
+        return fileEncoderService.encode(source, destination);
+    }
+
+    @Override
+    public boolean decode(File source, OutputStream destination) {
+        return fileEncoderService.decode(source, destination);
+    }
+}
@@ -0,0 +1,144 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+import moreland.base64.cli.internal.GuardAgainst;
+
+/**
+ * Runs many file conversions in one JVM on a bounded pool of worker threads; each file goes through
+ * {@link FileEncoderService} so large inputs still get the mapped or parallel paths
+ */
+@Service("batchEncoderService")
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class ConcurrentBatchEncoderService implements BatchEncoderService {
+
+    private static final String ENCODED_SUFFIX = ".b64";
+    private static final String DECODED_SUFFIX = ".decoded";
+
+    private final FileEncoderService fileEncoderService;
+    private final int concurrency;
+    private Logger logger = LoggerFactory.getLogger(ConcurrentBatchEncoderService.class);
+
+    public ConcurrentBatchEncoderService(FileEncoderService fileEncoderService) {
+        this(fileEncoderService, 0);
+    }
+
+    /**
+     * @param fileEncoderService service used for each file
+     * @param concurrency maximum number of files converted at once, 0 or less to use the number of processors
+     */
+    @Autowired
+    public ConcurrentBatchEncoderService(FileEncoderService fileEncoderService,
+            @Value("${base64.batch.concurrency:0}") int concurrency) {
+        GuardAgainst.argumentBeingNull(fileEncoderService, "fileEncoderService");
+        this.fileEncoderService = fileEncoderService;
+        this.concurrency = concurrency > 0
+            ? concurrency
+            : Runtime.getRuntime().availableProcessors();
+    }
+
+    @FunctionalInterface
+    private interface FileToFileProcessor {
+        boolean process(File source, File destination);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Result> encode(List<Path> inputs, Path outputDirectory) {
+        return process(inputs, outputDirectory, fileEncoderService::encode, name -> name + ENCODED_SUFFIX);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Result> decode(List<Path> inputs, Path outputDirectory) {
+        return process(inputs, outputDirectory, fileEncoderService::decode, name -> name.endsWith(ENCODED_SUFFIX)
+            ? name.substring(0, name.length() - ENCODED_SUFFIX.length())
+            : name + DECODED_SUFFIX);
+    }
+
+    private List<Result> process(List<Path> inputs, Path outputDirectory, FileToFileProcessor processor, UnaryOperator<String> outputName) {
+        GuardAgainst.argumentBeingNull(inputs, "inputs");
+
+        if (outputDirectory != null) {
+            try {
+                Files.createDirectories(outputDirectory);
+            } catch (IOException e) {
+                logger.error(e.getMessage());
+                return inputs.stream()
+                    .map(input -> new Result(input, null, false, 0, 0))
+                    .toList();
+            }
+        }
+
+        var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency, inputs.size())));
+        try {
+            var pending = new ArrayList<Future<Result>>(inputs.size());
+            for (var input : inputs) {
+                var directory = outputDirectory != null ? outputDirectory : input.toAbsolutePath().getParent();
+                var output = directory.resolve(outputName.apply(input.getFileName().toString()));
+                pending.add(executor.submit(() -> processFile(input, output, processor)));
+            }
+
+            var results = new ArrayList<Result>(inputs.size());
+            for (int i = 0; i < pending.size(); i++) {
+                results.add(awaitResult(pending.get(i), inputs.get(i)));
+            }
+            return results;
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Result processFile(Path input, Path output, FileToFileProcessor processor) {
+        long start = System.nanoTime();
+        boolean success = processor.process(input.toFile(), output.toFile());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new Result(input, output, success, input.toFile().length(), elapsedMillis);
+    }
+
+    private Result awaitResult(Future<Result> pending, Path input) {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(input, null, false, 0, 0);
+        } catch (ExecutionException e) {
+            logger.error("{}: {}", input, e.getCause().getMessage());
+            return new Result(input, null, false, 0, 0);
+        }
+    }
+}
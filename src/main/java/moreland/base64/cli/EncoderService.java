@@ -15,9 +15,50 @@ package moreland.base64.cli;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.util.Optional;
+import java.util.concurrent.Flow;
 import java.util.stream.Stream;
 
+import moreland.base64.cli.internal.Base64FormatException;
+import moreland.base64.cli.internal.Base64Variant;
+import moreland.base64.cli.internal.Compression;
+import moreland.base64.cli.internal.StreamingDecoder;
+
 public interface EncoderService {
+
+    /**
+     * Outcome of checking encoded input without decoding it
+     * @param valid true if the whole input would decode successfully
+     * @param decodedLength bytes the input decodes to, if invalid the bytes decoded before the error
+     * @param errorOffset offset of the first illegal character or misplaced padding, or of the end of input
+     *        if it ended partway through a group; -1 if valid
+     * @param error description of the problem, empty if valid
+     */
+    record Validation(boolean valid, long decodedLength, long errorOffset, String error) {
+
+        public static Validation success(long decodedLength) {
+            return new Validation(true, decodedLength, -1, "");
+        }
+
+        public static Validation failure(long decodedLength, Base64FormatException exception) {
+            return new Validation(false, decodedLength, exception.offset(), exception.getMessage());
+        }
+    }
+
+    /**
+     * @return form of the output of every encode method: alphabet, padding and line wrapping;
+     *         decoding accepts either alphabet, with or without padding, whatever the variant
+     */
+    Base64Variant variant();
+
+    /**
+     * @param variant form of the encoded output
+     * @return a service encoding to {@code variant}, configured as this one in every other way
+     */
+    EncoderService withVariant(Base64Variant variant);
     
     /**
      * Encode a Byte array to base64 encoded string
@@ -33,6 +74,25 @@ public interface EncoderService {
      */
     byte[] encode(Stream<Byte> source);
 
+    /**
+     * Encode {@code length} bytes of {@code source} into {@code destination} without allocating
+     * @param source bytes to encode
+     * @param offset offset of first byte in {@code source}
+     * @param length number of bytes to encode
+     * @param destination buffer receiving the encoded characters, must have
+     *        {@link #encodedLength(int)} bytes available from {@code destinationOffset}
+     * @param destinationOffset offset of first character written
+     * @return number of bytes written to {@code destination}
+     */
+    int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset);
+
+    /**
+     * Exact length of the base64 encoding of {@code sourceLength} bytes
+     * @param sourceLength number of bytes to encode
+     * @return number of encoded characters including any padding and line separators
+     */
+    int encodedLength(int sourceLength);
+
     /**
      * Encode a Stream of Bytes to base64 encoded string
      * @param streamSource 
@@ -48,19 +108,103 @@ public interface EncoderService {
     boolean encode(InputStream inputStream, OutputStream outputStream);
 
     /**
-     * Encode a String of a base64 encoded string
+     * Compresses and encodes {@code inputStream} to {@code outputStream} in a single streaming pass,
+     * large inputs are compressed in independent blocks in parallel
+     * @param inputStream bytes to compress and encode
+     * @param outputStream receives the encoded compressed bytes, flushed but not closed
+     * @param compression compression applied before encoding, {@link Compression#NONE} is the same as
+     *        {@link #encode(InputStream, OutputStream)}
+     * @return true on success; otherwise false
+     */
+    boolean encode(InputStream inputStream, OutputStream outputStream, Compression compression);
+
+    /**
+     * Encode {@code source} into {@code destination} as far as both allow, equivalent to
+     * {@code encode(source, destination, true)}
+     * @param source bytes to encode
+     * @param destination buffer receiving the encoded characters
+     * @return {@link CoderResult#UNDERFLOW} once {@code source} is consumed or
+     *         {@link CoderResult#OVERFLOW} if {@code destination} needs more room
+     */
+    CoderResult encode(ByteBuffer source, ByteBuffer destination);
+
+    /**
+     * Encode {@code source} into {@code destination} as far as both allow, following
+     * {@link java.nio.charset.CharsetEncoder} semantics; works with heap and direct buffers
+     * @param source bytes to encode, position is advanced past consumed input
+     * @param destination buffer receiving the encoded characters, position is advanced past written output
+     * @param endOfInput true if no input follows {@code source}, a trailing partial or padded group is
+     *        otherwise left in {@code source} for the next call
+     * @return {@link CoderResult#UNDERFLOW} once {@code source} is consumed or
+     *         {@link CoderResult#OVERFLOW} if {@code destination} needs more room
+     */
+    CoderResult encode(ByteBuffer source, ByteBuffer destination, boolean endOfInput);
+
+    /**
+     * As {@link #encode(ByteBuffer, ByteBuffer, boolean)} for input of which {@code sourcePosition} bytes have
+     * already been encoded, needed to place line breaks when the variant wraps lines and input arrives in pieces
+     * @param source bytes to encode, position is advanced past consumed input
+     * @param destination buffer receiving the encoded characters, position is advanced past written output
+     * @param sourcePosition bytes of the same input encoded before the position of {@code source}, a multiple of 3
+     * @param endOfInput true if no input follows {@code source}
+     * @return {@link CoderResult#UNDERFLOW} once {@code source} is consumed or
+     *         {@link CoderResult#OVERFLOW} if {@code destination} needs more room
+     */
+    CoderResult encode(ByteBuffer source, ByteBuffer destination, long sourcePosition, boolean endOfInput);
+
+    /**
+     * Encode a Byte array to a base64 encoded String; the characters are encoded into an array of exactly the
+     * encoded length which the String copies once, with no charset conversion and no platform default involved
+     * @param source bytes to encode
+     * @return base64 encoded String, stored compactly as Latin-1
+     */
+    String encodeToString(byte[] source);
+
+    /**
+     * Encode the UTF-8 bytes of a String to a base64 encoded string
      * @param source
      * @return base64 encoded String
      */
     String encode(String source);
 
     /**
-     * Decode a Bas64 encoded String to byte array
+     * Encode the bytes of {@code source} in {@code charset} to a base64 encoded String
+     * @param source text to encode
+     * @param charset charset converting {@code source} to the bytes that are encoded
+     * @return base64 encoded String
+     */
+    String encode(String source, Charset charset);
+
+    /**
+     * Decode a Bas64 encoded String to byte array using the configured engine; with the {@code scalar} engine its
+     * characters are read directly, other engines decode byte arrays so the String is first copied to a Latin-1 array
      * @param source
      * @return byte array of decoded {@code source}
+     * @throws Base64FormatException if {@code source} is not valid base64
      */
     byte[] decode(String source);
 
+    /**
+     * Decode base64 encoded characters to a byte array, reading them directly rather than
+     * converting them to bytes first; as engines work on byte arrays this is always table driven,
+     * a {@link String} is better passed to {@link #decode(String)} which honours the configured engine
+     * @param source base64 encoded characters, without whitespace
+     * @return byte array of decoded {@code source}
+     * @throws Base64FormatException if {@code source} is not valid base64
+     */
+    byte[] decode(CharSequence source);
+
+    /**
+     * Decode {@code length} base64 encoded characters of {@code source} to a byte array,
+     * reading them directly rather than converting them to bytes first
+     * @param source base64 encoded characters, without whitespace
+     * @param offset offset of first character in {@code source}
+     * @param length number of characters to decode
+     * @return byte array of decoded characters
+     * @throws Base64FormatException if the characters are not valid base64, with the offset relative to {@code offset}
+     */
+    byte[] decode(char[] source, int offset, int length);
+
     /**
      * Decode a Bas64 encoded String to byte array
      * @param source
@@ -69,12 +213,71 @@ public interface EncoderService {
     byte[] decode(byte[] source);
 
     /**
-     * Decode a Bas64 encoded String to String
+     * Decode {@code length} characters of {@code source} into {@code destination} without allocating
+     * @param source base64 encoded characters, without whitespace
+     * @param offset offset of first character in {@code source}
+     * @param length number of characters to decode
+     * @param destination buffer receiving the decoded bytes, must have
+     *        {@link #decodedLength(byte[], int, int)} bytes available from {@code destinationOffset}
+     * @param destinationOffset offset of first byte written
+     * @return number of bytes written to {@code destination}
+     * @throws IllegalArgumentException if {@code source} is not valid base64
+     */
+    int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset);
+
+    /**
+     * Exact number of bytes {@code length} characters of {@code source} decode to
+     * @param source base64 encoded characters, without whitespace
+     * @param offset offset of first character in {@code source}
+     * @param length number of characters
+     * @return number of decoded bytes
+     */
+    int decodedLength(byte[] source, int offset, int length);
+
+    /**
+     * Decode {@code source} into {@code destination} as far as both allow, equivalent to
+     * {@code decode(source, destination, true)}
+     * @param source base64 encoded characters, without whitespace
+     * @param destination buffer receiving the decoded bytes
+     * @return {@link CoderResult#UNDERFLOW} once {@code source} is consumed,
+     *         {@link CoderResult#OVERFLOW} if {@code destination} needs more room or a
+     *         malformed result if {@code source} is not valid base64
+     */
+    CoderResult decode(ByteBuffer source, ByteBuffer destination);
+
+    /**
+     * Decode {@code source} into {@code destination} as far as both allow, following
+     * {@link java.nio.charset.CharsetDecoder} semantics; works with heap and direct buffers
+     * @param source base64 encoded characters without whitespace, position is advanced past consumed input
+     * @param destination buffer receiving the decoded bytes, position is advanced past written output
+     * @param endOfInput true if no input follows {@code source}, a trailing partial or padded group is
+     *        otherwise left in {@code source} for the next call
+     * @return {@link CoderResult#UNDERFLOW} once {@code source} is consumed,
+     *         {@link CoderResult#OVERFLOW} if {@code destination} needs more room or a
+     *         malformed result, with {@code source} positioned at the offending group, if
+     *         {@code source} is not valid base64
+     */
+    CoderResult decode(ByteBuffer source, ByteBuffer destination, boolean endOfInput);
+
+    /**
+     * Decode a Bas64 encoded String to a String of its UTF-8 decoded bytes, as
+     * {@link #decodeToString(CharSequence, Charset)}
      * @param source
      * @return String of decoded {@code source}
      */
     String decodeToString(String source);
 
+    /**
+     * Decode base64 encoded characters to the String their decoded bytes represent in {@code charset}; a
+     * {@link String} is decoded as {@link #decode(String)} does, taking a Latin-1 copy unless the engine is
+     * {@code scalar}, any other {@link CharSequence} as {@link #decode(CharSequence)}
+     * @param source base64 encoded characters, without whitespace
+     * @param charset charset of the decoded bytes
+     * @return String of decoded {@code source}
+     * @throws Base64FormatException if {@code source} is not valid base64
+     */
+    String decodeToString(CharSequence source, Charset charset);
+
     /**
      * Decode a Bas64 encoded String to byte array
      * @param source
@@ -89,6 +292,47 @@ public interface EncoderService {
      */
     boolean decode(InputStream inputStream, OutputStream outputStream);
 
+    /**
+     * Decodes and decompresses {@code inputStream} to {@code outputStream} in a single streaming pass
+     * @param inputStream base64 encoded compressed bytes
+     * @param outputStream receives the decompressed bytes, flushed but not closed
+     * @param compression compression applied before the input was encoded, {@link Compression#NONE} is the same as
+     *        {@link #decode(InputStream, OutputStream)}
+     * @return true on success; otherwise false
+     */
+    boolean decode(InputStream inputStream, OutputStream outputStream, Compression compression);
+
+    /**
+     * Checks {@code source} decodes successfully, as {@link #decode(InputStream, OutputStream)} would,
+     * without producing any decoded output; the scan stops at the first error
+     * @param source base64 encoded characters, read to the end or the first error
+     * @return the outcome, or empty if {@code source} couldn't be read
+     */
+    Optional<Validation> validate(InputStream source);
+
+    /**
+     * Creates an incremental decoder configured the same way as this service's stream decoding, engine included,
+     * for callers that feed input in pieces from sources other than an {@link InputStream}
+     * @return a new decoder
+     */
+    StreamingDecoder createDecoder();
+
+    /**
+     * Creates a processor encoding the buffers published to it, a group split between buffers is
+     * carried over to the next; honours the subscriber's demand, requesting upstream buffers only as needed
+     * @param chunkSize maximum size of each buffer published to the subscriber
+     * @return a new processor, supporting a single subscriber
+     */
+    Flow.Processor<ByteBuffer, ByteBuffer> encodingProcessor(int chunkSize);
+
+    /**
+     * Creates a processor decoding the buffers published to it, configured the same way as this
+     * service's stream decoding; invalid input is signalled through {@code onError}
+     * @param chunkSize maximum size of each buffer published to the subscriber
+     * @return a new processor, supporting a single subscriber
+     */
+    Flow.Processor<ByteBuffer, ByteBuffer> decodingProcessor(int chunkSize);
+
     /**
      * Decode a Bas64 encoded String to byte array
      * @param source
@@ -0,0 +1,43 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import moreland.base64.cli.internal.ExtractedSpan;
+
+public interface ExtractionService {
+
+    /**
+     * Decodes each Base64 payload embedded in {@code file} to its own file in a single pass, without loading
+     * or parsing {@code file} as a whole
+     * @param file JSON, XML or text containing the payloads
+     * @param outputDirectory directory payloads are written to, named after {@code file} followed by their number;
+     *        created if missing
+     * @return outcome of each payload in the order found, empty if {@code file} can't be read or an output can't be written
+     */
+    Optional<List<ExtractedSpan>> extract(File file, Path outputDirectory);
+
+    /**
+     * Decodes each Base64 payload embedded in {@code source} to its own file in a single pass
+     * @param source JSON, XML or text containing the payloads, not closed
+     * @param outputDirectory directory payloads are written to, created if missing
+     * @param prefix start of each output file name, followed by the payload's number
+     * @return outcome of each payload in the order found, empty if {@code source} can't be read or an output can't be written
+     */
+    Optional<List<ExtractedSpan>> extract(InputStream source, Path outputDirectory, String prefix);
+}
@@ -14,9 +14,18 @@ package moreland.base64.cli;
 
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Optional;
 
+import moreland.base64.cli.internal.Base64Variant;
+
 public interface FileEncoderService {
+
+    /**
+     * @return form of the output written by every encode method
+     */
+    Base64Variant variant();
     
     Optional<byte[]> encode(File file);
     Optional<byte[]> decode(File file);
@@ -24,6 +33,58 @@ public interface FileEncoderService {
     boolean encode(File inputFile, File outputFile);
     boolean decode(File inputFile, File outputFile);
 
+    /**
+     * Opens the decoded content of {@code file} as a read only channel, reads decode only the encoded characters
+     * covering the bytes read so positioning the channel skips the rest of the file
+     * @param file Base64 encoded file, unwrapped or wrapped into lines
+     * @return open channel, closed by the caller; empty if {@code file} can't be opened
+     */
+    Optional<SeekableByteChannel> openDecoded(File file);
+
+    /**
+     * Decodes {@code length} bytes starting {@code offset} bytes into the decoded content of {@code file}
+     * without decoding the rest of it
+     * @param file Base64 encoded file, unwrapped or wrapped into lines
+     * @param offset offset within the decoded content
+     * @param length number of bytes to decode
+     * @return decoded bytes, fewer than {@code length} if the range runs past the end; empty on error
+     */
+    Optional<byte[]> decodeRange(File file, long offset, int length);
+
+    /**
+     * Checks {@code file} decodes successfully without producing any decoded output, large files are
+     * scanned through memory mapped windows
+     * @param file Base64 encoded file
+     * @return the outcome, or empty if {@code file} can't be read
+     */
+    Optional<EncoderService.Validation> validate(File file);
+
+    /**
+     * Encodes {@code inputFile} to {@code outputFile} when {@code inputFile} only ever grows, resuming from the
+     * checkpoint left next to {@code outputFile} by the previous run so only appended data is encoded;
+     * the whole file is encoded if there is no usable checkpoint
+     * @param inputFile append only file to encode
+     * @param outputFile encoded output, kept up to date with {@code inputFile} across runs
+     * @return true on success; otherwise false
+     */
+    boolean encodeIncremental(File inputFile, File outputFile);
+
     boolean encode(InputStream source, File destination);
     boolean decode(InputStream source, File destination);
+
+    /**
+     * Encodes {@code source} to {@code destination} as it is read, holding no more than a block of either in memory
+     * @param source file to encode
+     * @param destination receives the encoded characters, flushed but not closed
+     * @return true on success; otherwise false
+     */
+    boolean encode(File source, OutputStream destination);
+
+    /**
+     * Decodes {@code source} to {@code destination} as it is read, holding no more than a block of either in memory
+     * @param source Base64 encoded file
+     * @param destination receives the decoded bytes, flushed but not closed
+     * @return true on success; otherwise false
+     */
+    boolean decode(File source, OutputStream destination);
 }
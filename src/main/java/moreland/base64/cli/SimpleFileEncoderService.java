@@ -14,23 +14,49 @@ package moreland.base64.cli;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import moreland.base64.cli.internal.Base64Codec;
+import moreland.base64.cli.internal.Base64FormatException;
+import moreland.base64.cli.internal.Base64Variant;
+import moreland.base64.cli.internal.ConversionStatistics;
+import moreland.base64.cli.internal.DecodedFileChannel;
+import moreland.base64.cli.internal.EncodedFileCache;
+import moreland.base64.cli.internal.EncodingCheckpoint;
 import moreland.base64.cli.internal.GuardAgainst;
+import moreland.base64.cli.internal.StreamingDecoder;
 
 @Service("fileEncoderService")
 @Scope(value = BeanDefinition.SCOPE_SINGLETON)
@@ -39,11 +65,69 @@ public class SimpleFileEncoderService implements FileEncoderService {
     private EncoderService encoderService;
     private Logger logger = LoggerFactory.getLogger(SimpleFileEncoderService.class);
     private static final String FILE_NOT_FOUND = "File not found";
+    static final long DEFAULT_MAPPED_THRESHOLD = 64L * 1024 * 1024;
+    private static final long MAPPED_ENCODE_WINDOW_SIZE = 3L * 16 * 1024 * 1024;
+    private static final long MAPPED_DECODE_WINDOW_SIZE = 4L * 16 * 1024 * 1024;
+    private static final int MAPPED_DECODE_SLICE_SIZE = 4 * 1024 * 1024;
+    static final long DEFAULT_PARALLEL_THRESHOLD = 256L * 1024 * 1024;
+    static final int DEFAULT_PIPELINE_BUFFER_SIZE = 1024 * 1024;
+    private final long mappedThreshold;
+    private final long parallelThreshold;
+    private final int pipelineDepth;
+    private final int pipelineBufferSize;
+    private final long encodeWindowSize;
+    private final long decodeWindowSize;
 
-    @Autowired
     public SimpleFileEncoderService(EncoderService encoderService) {
+        this(encoderService, DEFAULT_MAPPED_THRESHOLD, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public SimpleFileEncoderService(EncoderService encoderService, long mappedThreshold, long parallelThreshold) {
+        this(encoderService, mappedThreshold, parallelThreshold, 0, DEFAULT_PIPELINE_BUFFER_SIZE);
+    }
+
+    /**
+     * @param encoderService encoder used for all conversions
+     * @param mappedThreshold file to file conversions of inputs at least this many bytes long
+     *        use memory mapped channels rather than buffered streams, negative to disable
+     * @param parallelThreshold file to file conversions of inputs at least this many bytes long
+     *        are split into segments converted concurrently on the common fork/join pool, negative to disable
+     * @param pipelineDepth number of buffers in flight when file to file conversions below the parallel threshold
+     *        overlap reads, conversion and writes in place of the buffered stream and memory mapped modes; 0 to disable
+     * @param pipelineBufferSize bytes read into each pipeline buffer, rounded down to a whole number of groups
+     */
+    @Autowired
+    public SimpleFileEncoderService(EncoderService encoderService,
+            @Value("${base64.file.mapped-threshold:" + DEFAULT_MAPPED_THRESHOLD + "}") long mappedThreshold,
+            @Value("${base64.file.parallel-threshold:" + DEFAULT_PARALLEL_THRESHOLD + "}") long parallelThreshold,
+            @Value("${base64.file.pipeline-depth:0}") int pipelineDepth,
+            @Value("${base64.file.pipeline-buffer-size:" + DEFAULT_PIPELINE_BUFFER_SIZE + "}") int pipelineBufferSize) {
+        this(encoderService, mappedThreshold, parallelThreshold, pipelineDepth, pipelineBufferSize,
+            MAPPED_ENCODE_WINDOW_SIZE, MAPPED_DECODE_WINDOW_SIZE);
+    }
+
+    /**
+     * as {@link #SimpleFileEncoderService(EncoderService, long, long, int, int)} with the window sizes of the memory
+     * mapped, parallel and incremental modes, lowered by tests to cover several windows with small files
+     * @param encodeWindowSize bytes encoded per window or parallel segment, a multiple of 3
+     * @param decodeWindowSize characters decoded or scanned per window or parallel segment
+     */
+    SimpleFileEncoderService(EncoderService encoderService, long mappedThreshold, long parallelThreshold,
+            int pipelineDepth, int pipelineBufferSize, long encodeWindowSize, long decodeWindowSize) {
         GuardAgainst.argumentBeingNull(encoderService, "encoderService");
+        if (pipelineDepth > 0 && pipelineBufferSize < 4) {
+            throw new IllegalArgumentException("pipeline buffer size must be at least 4 bytes");
+        }
+        if (encodeWindowSize <= 0 || encodeWindowSize % 3 != 0 || decodeWindowSize <= 0) {
+            throw new IllegalArgumentException("window sizes must be positive, encode windows a multiple of 3");
+        }
         this.encoderService = encoderService;
+        this.mappedThreshold = mappedThreshold;
+        this.parallelThreshold = parallelThreshold;
+        this.pipelineDepth = Math.max(0, pipelineDepth);
+        this.pipelineBufferSize = pipelineBufferSize;
+        this.encodeWindowSize = encodeWindowSize;
+        this.decodeWindowSize = decodeWindowSize;
     }
 
     @FunctionalInterface
@@ -51,6 +135,11 @@ public class SimpleFileEncoderService implements FileEncoderService {
         boolean process(InputStream source, OutputStream destination);
     }
 
+    @FunctionalInterface
+    private interface FileToFileProcessor {
+        boolean process(File source, File destination);
+    }
+
     private Optional<byte[]> processFile(File source, Function<InputStream, byte[]> processor) {
         if (!source.exists()) {
             logger.error(FILE_NOT_FOUND);
@@ -82,11 +171,27 @@ public class SimpleFileEncoderService implements FileEncoderService {
             return false;
         }
     }
+    private boolean processFileToStream(File source, OutputStream destination, StreamToStreamProcessor processor) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+        if (!source.exists()) {
+            logger.error(FILE_NOT_FOUND);
+            return false;
+        }
+
+        // the encoder service reads whole blocks itself, so the file is read unbuffered
+        try (var inputFileStream = new FileInputStream(source)) {
+            return processor.process(inputFileStream, destination);
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
     private boolean processStreamToFile(InputStream source, File destination, StreamToStreamProcessor processor) {
         GuardAgainst.argumentBeingNull(source, "source");
         GuardAgainst.argumentBeingNull(destination, "destination");
 
-        try (var bufferedInputStream = new BufferedInputStream(System.in);
+        try (var bufferedInputStream = new BufferedInputStream(source);
              var outputFileStream = new FileOutputStream(destination);
              var bufferedOutputStream = new BufferedOutputStream(outputFileStream);) {
 
@@ -98,6 +203,513 @@ public class SimpleFileEncoderService implements FileEncoderService {
         }
     }
 
+    private boolean useMappedChannels(File source) {
+        return mappedThreshold >= 0 && source.exists() && source.length() >= mappedThreshold;
+    }
+
+    private boolean useParallelSegments(File source) {
+        return parallelThreshold >= 0 && source.exists() && source.length() >= parallelThreshold;
+    }
+
+    private boolean usePipeline(File source) {
+        return pipelineDepth > 0 && source.exists();
+    }
+
+    /**
+     * One buffer of the pipeline ring: the read into {@link #input} and the write from {@link #output}
+     * are in flight while other slots are converted
+     */
+    private static final class PipelineSlot {
+        private final ByteBuffer input;
+        private final ByteBuffer output;
+        private Future<Integer> read;
+        private long readPosition;
+        private Future<Integer> write;
+        private long writePosition;
+
+        PipelineSlot(int inputSize, int outputSize) {
+            input = ByteBuffer.allocateDirect(inputSize);
+            output = ByteBuffer.allocateDirect(outputSize);
+        }
+
+        /**
+         * Starts reading up to a buffer's worth at {@code position}, nothing if that is past {@code size}
+         */
+        void read(AsynchronousFileChannel channel, long position, long size) {
+            input.clear();
+            read = null;
+            if (position < size) {
+                input.limit((int) Math.min(input.capacity(), size - position));
+                readPosition = position;
+                read = channel.read(input, position);
+            }
+        }
+
+        /**
+         * @return the data read, continuing synchronously after a short read
+         */
+        ByteBuffer awaitRead(AsynchronousFileChannel channel) throws IOException {
+            while (read != null) {
+                int count = await(read);
+                if (count < 0) {
+                    throw new EOFException("input ended at " + readPosition + " while being read");
+                }
+                readPosition += count;
+                read = input.hasRemaining() ? channel.read(input, readPosition) : null;
+            }
+            return input.flip();
+        }
+
+        /**
+         * Starts writing {@link #output}, from its position to its limit, at {@code position}
+         */
+        void write(AsynchronousFileChannel channel, long position) {
+            writePosition = position;
+            write = channel.write(output, position);
+        }
+
+        /**
+         * Waits for the write in flight, continuing synchronously after a short write, so {@link #output} can be reused
+         */
+        void awaitWrite(AsynchronousFileChannel channel) throws IOException {
+            while (write != null) {
+                writePosition += await(write);
+                write = output.hasRemaining() ? channel.write(output, writePosition) : null;
+            }
+        }
+
+        private static int await(Future<Integer> operation) throws IOException {
+            try {
+                return operation.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted waiting for file I/O");
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException ioException ? ioException : new IOException(e.getCause());
+            }
+        }
+    }
+
+    private PipelineSlot[] pipelineRing(int inputSize, int outputSize) {
+        var ring = new PipelineSlot[pipelineDepth];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new PipelineSlot(inputSize, outputSize);
+        }
+        return ring;
+    }
+
+    /**
+     * Encodes through a ring of buffers: reads run up to a ring ahead on the asynchronous channel's threads and
+     * each encoded buffer is written behind while the next is encoded, so on slow storage the elapsed time
+     * approaches that of the slowest stage rather than the sum of all three. Buffers are a multiple of 3 bytes
+     * so, as with memory mapped windows, each lands at an output offset known up front
+     */
+    private boolean encodePipelined(File source, File destination) {
+        var variant = encoderService.variant();
+        int chunk = Math.max(3, pipelineBufferSize / 3 * 3);
+        try (var input = AsynchronousFileChannel.open(source.toPath(), StandardOpenOption.READ);
+             var output = AsynchronousFileChannel.open(destination.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = input.size();
+            // a buffer may start at a line boundary and so with a separator
+            var ring = pipelineRing(chunk, (int) variant.encodedLength(chunk) + variant.lineSeparator().length());
+            for (int i = 0; i < ring.length; i++) {
+                ring[i].read(input, (long) i * chunk, size);
+            }
+
+            int slot = 0;
+            for (long position = 0; position < size; position += chunk) {
+                var current = ring[slot];
+                var sample = ConversionStatistics.begin("encode.pipelined");
+                long mark = sample.mark();
+                var data = current.awaitRead(input);
+                current.awaitWrite(output);
+                mark = sample.io(mark);
+
+                int length = data.remaining();
+                var encoded = current.output.clear();
+                boolean success = encoderService.encode(data, encoded, position, position + length >= size).isUnderflow()
+                    && !data.hasRemaining();
+                mark = sample.codec(mark);
+                if (!success) {
+                    sample.complete(false);
+                    throw new IOException("unable to encode buffer at " + position);
+                }
+
+                int count = encoded.flip().remaining();
+                current.write(output, variant.encodedLength(position));
+                current.read(input, position + (long) ring.length * chunk, size);
+                sample.io(mark);
+                sample.chunk(length, count);
+                sample.complete(true);
+                slot = (slot + 1) % ring.length;
+            }
+            for (var pending : ring) {
+                pending.awaitWrite(output);
+            }
+            return true;
+
+        } catch (IOException | RuntimeException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Encodes through memory mapped windows; each input window is a multiple of 3 bytes so it maps onto
+     * an output window at a fixed offset and only the final window carries padding
+     */
+    private boolean encodeMapped(File source, File destination) {
+        try (var input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             var output = FileChannel.open(destination.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = input.size();
+            for (long position = 0; position < size; position += encodeWindowSize) {
+                encodeWindow(input, output, position, (int) Math.min(encodeWindowSize, size - position));
+            }
+            return true;
+
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Encodes 3 byte aligned segments concurrently on the common fork/join pool; every segment's output
+     * offset is known up front so each task maps and writes its own region of the preallocated output
+     */
+    private boolean encodeParallel(File source, File destination) {
+        try (var input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             var output = FileChannel.open(destination.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = input.size();
+            long encodedSize = encoderService.variant().encodedLength(size);
+            if (encodedSize > 0) {
+                output.write(ByteBuffer.wrap(new byte[1]), encodedSize - 1);
+            }
+
+            var segments = new ArrayList<Callable<Void>>();
+            for (long position = 0; position < size; position += encodeWindowSize) {
+                long segmentPosition = position;
+                int length = (int) Math.min(encodeWindowSize, size - position);
+                segments.add(() -> {
+                    encodeWindow(input, output, segmentPosition, length);
+                    return null;
+                });
+            }
+            invokeAll(segments);
+            return true;
+
+        } catch (IOException | RuntimeException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Runs {@code work} on the common fork/join pool, waiting for all of it to complete
+     * @return results in the same order as {@code work}
+     */
+    private static <T> List<T> invokeAll(List<Callable<T>> work) {
+        var tasks = work.stream()
+            .map(ForkJoinTask::adapt)
+            .collect(Collectors.toList());
+        ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        return tasks.stream()
+            .map(ForkJoinTask::join)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Encodes {@code length} bytes at {@code position}, a multiple of 3, into the matching region of {@code output};
+     * the region starts with the line separator, if any, preceding the window's first line
+     */
+    private void encodeWindow(FileChannel input, FileChannel output, long position, int length) throws IOException {
+        var sample = ConversionStatistics.begin("encode.window");
+        long mark = sample.mark();
+        var variant = encoderService.variant();
+        long encodedPosition = variant.encodedLength(position);
+        var window = input.map(FileChannel.MapMode.READ_ONLY, position, length);
+        var encoded = output.map(FileChannel.MapMode.READ_WRITE, encodedPosition,
+            variant.encodedLength(position + length) - encodedPosition);
+        mark = sample.io(mark);
+
+        // page faults on the mapped buffers are charged to the codec, they can't be told apart from encoding
+        boolean success = encoderService.encode(window, encoded, position, true).isUnderflow() && !window.hasRemaining();
+        sample.codec(mark);
+        sample.chunk(length, encoded.position());
+        sample.complete(success);
+        if (!success) {
+            throw new IOException("unable to encode window at " + position);
+        }
+    }
+
+    /**
+     * Decodes through a ring of buffers as {@link #encodePipelined(File, File)} does; the decoded length of a buffer
+     * isn't known until it is decoded, so each is written where the one before it ended
+     */
+    private boolean decodePipelined(File source, File destination) {
+        int chunk = pipelineBufferSize;
+        try (var input = AsynchronousFileChannel.open(source.toPath(), StandardOpenOption.READ);
+             var output = AsynchronousFileChannel.open(destination.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = input.size();
+            var decoder = encoderService.createDecoder();
+            var ring = pipelineRing(chunk, StreamingDecoder.maxDecodedLength(chunk));
+            for (int i = 0; i < ring.length; i++) {
+                ring[i].read(input, (long) i * chunk, size);
+            }
+
+            int slot = 0;
+            long written = 0;
+            for (long position = 0; position < size; position += chunk) {
+                var current = ring[slot];
+                var sample = ConversionStatistics.begin("decode.pipelined");
+                long mark = sample.mark();
+                var data = current.awaitRead(input);
+                current.awaitWrite(output);
+                mark = sample.io(mark);
+
+                int length = data.remaining();
+                int count;
+                try {
+                    count = decoder.decode(data, current.output.clear());
+                } catch (IllegalArgumentException e) {
+                    sample.complete(false);
+                    throw e;
+                }
+                mark = sample.codec(mark);
+
+                current.output.flip();
+                current.write(output, written);
+                written += count;
+                current.read(input, position + (long) ring.length * chunk, size);
+                sample.io(mark);
+                sample.chunk(length, count);
+                sample.complete(true);
+                slot = (slot + 1) % ring.length;
+            }
+            for (var pending : ring) {
+                pending.awaitWrite(output);
+            }
+
+            var last = ByteBuffer.allocate(2);
+            decoder.finish(last);
+            last.flip();
+            while (last.hasRemaining()) {
+                written += PipelineSlot.await(output.write(last, written));
+            }
+            return true;
+
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Decodes memory mapped input windows through a single direct buffer written with positional writes;
+     * the decoded length isn't known up front when the input is wrapped, so the output grows as written
+     */
+    private boolean decodeMapped(File source, File destination) {
+        try (var input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             var output = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            var decoder = encoderService.createDecoder();
+            var decoded = ByteBuffer.allocateDirect(StreamingDecoder.maxDecodedLength(MAPPED_DECODE_SLICE_SIZE));
+            long size = input.size();
+            long written = 0;
+
+            for (long position = 0; position < size; position += decodeWindowSize) {
+                var window = input.map(FileChannel.MapMode.READ_ONLY, position, Math.min(decodeWindowSize, size - position));
+                written = decodeWindow(decoder, window, decoded, output, written);
+            }
+            decoder.finish(decoded.clear());
+            writeFully(output, decoded.flip(), written);
+            return true;
+
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * significant (non whitespace) characters within a segment of encoded input along with the
+     * file offset of its first padding character and the significant characters preceding it, -1 if none
+     */
+    private record SegmentScan(long significant, long firstPadding, long significantBeforePadding) {
+    }
+
+    /**
+     * Decodes in two passes over concurrently processed segments: the first counts significant characters
+     * so each segment boundary can be moved forward onto a 4 character group boundary, giving every segment
+     * a known output offset; the second decodes the segments into the preallocated output
+     */
+    private boolean decodeParallel(File source, File destination) {
+        try (var input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             var output = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = input.size();
+            var scanWork = new ArrayList<Callable<SegmentScan>>();
+            for (long position = 0; position < size; position += decodeWindowSize) {
+                long segmentPosition = position;
+                scanWork.add(() -> scanSegment(input, segmentPosition, Math.min(decodeWindowSize, size - segmentPosition)));
+            }
+            var scans = invokeAll(scanWork);
+
+            // boundaries hold pairs of file offset and the significant characters before it, always a multiple of 4
+            var boundaries = new ArrayList<long[]>();
+            boundaries.add(new long[] { 0, 0 });
+            long significant = 0;
+            long firstPadding = -1;
+            long significantBeforePadding = -1;
+            for (int i = 0; i < scans.size(); i++) {
+                var scan = scans.get(i);
+                if (firstPadding < 0 && scan.firstPadding() >= 0) {
+                    firstPadding = scan.firstPadding();
+                    significantBeforePadding = significant + scan.significantBeforePadding();
+                }
+                significant += scan.significant();
+
+                if (i + 1 < scans.size()) {
+                    long aligned = (significant + 3) / 4 * 4;
+                    long boundary = skipSignificant(input, (i + 1) * decodeWindowSize, aligned - significant);
+                    if (boundary > boundaries.get(boundaries.size() - 1)[0] && boundary < size) {
+                        boundaries.add(new long[] { boundary, aligned });
+                    }
+                }
+            }
+
+            long decodedSize = decodedSize(significant, firstPadding, significantBeforePadding);
+            if (decodedSize > 0) {
+                output.write(ByteBuffer.wrap(new byte[1]), decodedSize - 1);
+            }
+
+            var decodeWork = new ArrayList<Callable<Void>>();
+            for (int i = 0; i < boundaries.size(); i++) {
+                long start = boundaries.get(i)[0];
+                long end = i + 1 < boundaries.size() ? boundaries.get(i + 1)[0] : size;
+                long outputPosition = boundaries.get(i)[1] / 4 * 3;
+                decodeWork.add(() -> {
+                    var decoder = encoderService.createDecoder();
+                    decoder.reset(start);
+                    var decoded = ByteBuffer.allocateDirect(StreamingDecoder.maxDecodedLength(MAPPED_DECODE_SLICE_SIZE));
+                    var window = input.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    long written = decodeWindow(decoder, window, decoded, output, outputPosition);
+                    decoder.finish(decoded.clear());
+                    writeFully(output, decoded.flip(), written);
+                    return null;
+                });
+            }
+            invokeAll(decodeWork);
+            return true;
+
+        } catch (IOException | RuntimeException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    private static SegmentScan scanSegment(FileChannel input, long position, long length) throws IOException {
+        var window = input.map(FileChannel.MapMode.READ_ONLY, position, length);
+        long significant = 0;
+        long firstPadding = -1;
+        long significantBeforePadding = -1;
+
+        for (int i = 0, limit = window.limit(); i < limit; i++) {
+            byte character = window.get(i);
+            if (Base64Codec.isWhitespace(character)) {
+                continue;
+            }
+            if (character == '=' && firstPadding < 0) {
+                firstPadding = position + i;
+                significantBeforePadding = significant;
+            }
+            significant++;
+        }
+        return new SegmentScan(significant, firstPadding, significantBeforePadding);
+    }
+
+    /**
+     * @return file offset just past the next {@code count} significant characters at or after {@code position}
+     */
+    private static long skipSignificant(FileChannel input, long position, long count) throws IOException {
+        var buffer = ByteBuffer.allocate(256);
+        while (count > 0) {
+            buffer.clear();
+            int read = input.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read && count > 0; i++) {
+                if (!Base64Codec.isWhitespace(buffer.get(i))) {
+                    count--;
+                }
+                position++;
+            }
+        }
+        return position;
+    }
+
+    private static long decodedSize(long significant, long firstPadding, long significantBeforePadding) {
+        if (firstPadding < 0) {
+            if (significant % 4 == 1) {
+                throw new IllegalArgumentException("Last unit does not have at least 2 base64 characters");
+            }
+            return significant / 4 * 3 + Math.max(0, significant % 4 - 1);
+        }
+
+        long padding = significant - significantBeforePadding;
+        if (padding > 2 || significant % 4 != 0) {
+            throw new IllegalArgumentException(
+                String.format("Illegal base64 character 0x%02x at offset %d, misplaced padding", (int) '=', firstPadding));
+        }
+        return significant / 4 * 3 - padding;
+    }
+
+    /**
+     * Decodes all of {@code window} in slices through {@code decoded}, writing at {@code position} of {@code output}
+     * @return position following the last byte written
+     */
+    private static long decodeWindow(StreamingDecoder decoder, ByteBuffer window, ByteBuffer decoded,
+            FileChannel output, long position) throws IOException {
+        var sample = ConversionStatistics.begin("decode.window");
+        boolean success = false;
+        try {
+            long mark = sample.mark();
+            while (window.hasRemaining()) {
+                var slice = window.slice().limit(Math.min(MAPPED_DECODE_SLICE_SIZE, window.remaining()));
+                window.position(window.position() + slice.remaining());
+
+                int count = decoder.decode(slice, decoded.clear());
+                mark = sample.codec(mark);
+                position += writeFully(output, decoded.flip(), position);
+                mark = sample.io(mark);
+                sample.chunk(slice.limit(), count);
+            }
+            success = true;
+            return position;
+        } finally {
+            sample.complete(success);
+        }
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
     @Override
     public Optional<byte[]> encode(File file) {
         return processFile(file, encoderService::encode);
@@ -110,22 +722,232 @@ public class SimpleFileEncoderService implements FileEncoderService {
 
     @Override
     public boolean encode(File inputFile, File outputFile) {
-        return processFileToFile(inputFile, outputFile, encoderService::encode);
+        if (useParallelSegments(inputFile)) {
+            return convertFile("encode.file.parallel", inputFile, outputFile, this::encodeParallel);
+        }
+        if (usePipeline(inputFile)) {
+            return convertFile("encode.file.pipelined", inputFile, outputFile, this::encodePipelined);
+        }
+        if (useMappedChannels(inputFile)) {
+            return convertFile("encode.file.mapped", inputFile, outputFile, this::encodeMapped);
+        }
+        return convertFile("encode.file.stream", inputFile, outputFile,
+            (source, destination) -> processFileToFile(source, destination, encoderService::encode));
     }
 
     @Override
     public boolean decode(File inputFile, File outputFile) {
-        return processFileToFile(inputFile, outputFile, encoderService::decode);
+        if (useParallelSegments(inputFile)) {
+            return convertFile("decode.file.parallel", inputFile, outputFile, this::decodeParallel);
+        }
+        if (usePipeline(inputFile)) {
+            return convertFile("decode.file.pipelined", inputFile, outputFile, this::decodePipelined);
+        }
+        if (useMappedChannels(inputFile)) {
+            return convertFile("decode.file.mapped", inputFile, outputFile, this::decodeMapped);
+        }
+        return convertFile("decode.file.stream", inputFile, outputFile,
+            (source, destination) -> processFileToFile(source, destination, encoderService::decode));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Base64Variant variant() {
+        return encoderService.variant();
+    }
+
+    @Override
+    public Optional<SeekableByteChannel> openDecoded(File file) {
+        GuardAgainst.argumentBeingNull(file, "file");
+        try {
+            return Optional.of(DecodedFileChannel.open(file.toPath(), encoderService.createDecoder()));
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<byte[]> decodeRange(File file, long offset, int length) {
+        GuardAgainst.argumentBeingNull(file, "file");
+        if (offset < 0 || length < 0) {
+            logger.error("Invalid range {} + {}", offset, length);
+            return Optional.empty();
+        }
+
+        var sample = ConversionStatistics.begin("decode.range");
+        try (var channel = DecodedFileChannel.open(file.toPath(), encoderService.createDecoder())) {
+            // the size is estimated until the layout has been confirmed, a file wrapped after its first
+            // probed window shrinks once re-indexed so the read may end before the buffer is full
+            var decoded = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - offset)));
+            channel.position(offset);
+            int read = 0;
+            while (decoded.hasRemaining() && read != -1) {
+                read = channel.read(decoded);
+            }
+            sample.bytes((decoded.position() + 2L) / 3 * 4, decoded.position());
+            sample.complete(true);
+            return Optional.of(decoded.hasRemaining() ? Arrays.copyOf(decoded.array(), decoded.position()) : decoded.array());
+
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            sample.complete(false);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<EncoderService.Validation> validate(File file) {
+        GuardAgainst.argumentBeingNull(file, "file");
+        if (!file.exists()) {
+            logger.error(FILE_NOT_FOUND);
+            return Optional.empty();
+        }
+        if (useMappedChannels(file)) {
+            return validateMapped(file);
+        }
+
+        try (var input = new FileInputStream(file)) {
+            return encoderService.validate(input);
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Scans memory mapped input windows with a single decoder so errors spanning windows are still found,
+     * nothing is decoded or allocated beyond the mappings
+     */
+    private Optional<EncoderService.Validation> validateMapped(File file) {
+        var sample = ConversionStatistics.begin("validate.file.mapped");
+        try (var input = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var decoder = encoderService.createDecoder();
+            long size = input.size();
+            long decodedLength = 0;
+            long mark = sample.mark();
+
+            EncoderService.Validation validation;
+            try {
+                for (long position = 0; position < size; position += decodeWindowSize) {
+                    var window = input.map(FileChannel.MapMode.READ_ONLY, position, Math.min(decodeWindowSize, size - position));
+                    decodedLength += decoder.measure(window);
+                    mark = sample.codec(mark);
+                }
+                decodedLength += decoder.finish();
+                validation = EncoderService.Validation.success(decodedLength);
+            } catch (Base64FormatException e) {
+                validation = EncoderService.Validation.failure(decodedLength, e);
+            }
+            sample.bytes(size, 0);
+            sample.complete(true);
+            return Optional.of(validation);
+
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            sample.complete(false);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Output before the checkpoint's consumed offset is left untouched; the output is truncated to it, dropping
+     * the padded final group, and everything from there on is encoded through the same windows as
+     * {@link #encodeMapped(File, File)}, the checkpoint is removed while the output is being changed
+     */
+    @Override
+    public boolean encodeIncremental(File inputFile, File outputFile) {
+        if (!inputFile.exists()) {
+            logger.error(FILE_NOT_FOUND);
+            return false;
+        }
+
+        if (!detachOutput(outputFile)) {
+            return false;
+        }
+
+        var checkpointPath = outputFile.toPath().resolveSibling(outputFile.getName() + EncodingCheckpoint.SUFFIX);
+        var sample = ConversionStatistics.begin("encode.file.incremental");
+        try (var input = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+             var output = FileChannel.open(outputFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE)) {
+
+            var variant = encoderService.variant();
+            var checkpoint = EncodingCheckpoint.read(checkpointPath);
+            long position = checkpoint.isPresent() && checkpoint.get().isValidFor(input, output, variant)
+                ? checkpoint.get().consumed()
+                : 0;
+            Files.deleteIfExists(checkpointPath);
+            output.truncate(variant.encodedLength(position));
+
+            long size = input.size();
+            for (long offset = position; offset < size; offset += encodeWindowSize) {
+                encodeWindow(input, output, offset, (int) Math.min(encodeWindowSize, size - offset));
+            }
+            long outputLength = variant.encodedLength(size);
+            output.force(false);
+
+            EncodingCheckpoint.after(input, outputLength, variant).write(checkpointPath);
+            sample.bytes(size - position, outputLength - variant.encodedLength(position));
+            sample.complete(true);
+            return true;
+
+        } catch (IOException | RuntimeException e) {
+            logger.error(e.getMessage());
+            sample.complete(false);
+            return false;
+        }
+    }
+
+    /**
+     * Runs {@code processor} recording its overall latency and sizes under {@code operation}
+     */
+    private boolean convertFile(String operation, File source, File destination, FileToFileProcessor processor) {
+        var sample = ConversionStatistics.begin(operation);
+        boolean result = detachOutput(destination) && processor.process(source, destination);
+        if (result && ConversionStatistics.isEnabled()) {
+            sample.bytes(source.length(), destination.length());
+        }
+        sample.complete(result);
+        return result;
+    }
+
+    /**
+     * Removes {@code destination} if it is hard linked to a cache entry, every conversion truncates or appends to
+     * its output in place which would otherwise rewrite the entry
+     */
+    private boolean detachOutput(File destination) {
+        try {
+            EncodedFileCache.unlinkShared(destination.toPath());
+            return true;
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
     }
 
     @Override
     public boolean encode(InputStream source, File destination) {
-        return processStreamToFile(source, destination, encoderService::encode);
+        return detachOutput(destination) && processStreamToFile(source, destination, encoderService::encode);
     }
 
     @Override
     public boolean decode(InputStream source, File destination) {
-        return processStreamToFile(source, destination, encoderService::decode);
+        return detachOutput(destination) && processStreamToFile(source, destination, encoderService::decode);
+    }
+
+    @Override
+    public boolean encode(File source, OutputStream destination) {
+        return processFileToStream(source, destination, encoderService::encode);
+    }
+
+    @Override
+    public boolean decode(File source, OutputStream destination) {
+        return processFileToStream(source, destination, encoderService::decode);
     }
 
 }
@@ -0,0 +1,55 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Resident server converting streams sent over a local socket, and the matching client, so repeated
+ * conversions share one warmed up JVM rather than each paying for startup and JIT compilation
+ */
+public interface SocketEncoderService {
+
+    /**
+     * @return socket configured by the {@code base64.socket} property, if any
+     */
+    Optional<Path> socketPath();
+
+    /**
+     * Listens on {@code socketPath} until the process is stopped, converting one request per connection
+     * @param socketPath path of the socket to create; a stale socket left by a previous server is replaced
+     * @return false if the socket couldn't be created or is in use by another server
+     */
+    boolean serve(Path socketPath);
+
+    /**
+     * Encodes {@code source} using the server listening on {@code socketPath}
+     * @param socketPath socket of a running server
+     * @param source bytes to encode
+     * @param destination receives the encoded result as it is streamed back
+     * @return true on success; false if the server couldn't be reached or reported an error
+     */
+    boolean encode(Path socketPath, InputStream source, OutputStream destination);
+
+    /**
+     * Decodes {@code source} using the server listening on {@code socketPath}
+     * @param socketPath socket of a running server
+     * @param source base64 encoded input
+     * @param destination receives the decoded result as it is streamed back
+     * @return true on success; false if the server couldn't be reached or reported an error
+     */
+    boolean decode(Path socketPath, InputStream source, OutputStream destination);
+}
@@ -0,0 +1,114 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+import moreland.base64.cli.internal.ConversionStatistics;
+import moreland.base64.cli.internal.EmbeddedSpanExtractor;
+import moreland.base64.cli.internal.ExtractedSpan;
+import moreland.base64.cli.internal.GuardAgainst;
+import moreland.base64.cli.internal.TimedStreams;
+
+/**
+ * Pulls Base64 payloads out of large JSON, XML or text files with a streaming scanner feeding the incremental
+ * decoder, so memory use doesn't grow with the input or with any payload
+ */
+@Service("extractionService")
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class StreamingExtractionService implements ExtractionService {
+
+    private final EmbeddedSpanExtractor extractor;
+    private Logger logger = LoggerFactory.getLogger(StreamingExtractionService.class);
+
+    public StreamingExtractionService() {
+        this("auto", "", "");
+    }
+
+    /**
+     * @param format {@code auto}, {@code text}, {@code json} or {@code xml}; auto chooses from the first character of the input
+     * @param jsonPath path of JSON string values to decode such as {@code $.attachments[*].content}, empty for none
+     * @param xmlElement local name of XML elements whose text is decoded, empty for none
+     * @throws IllegalArgumentException if {@code format} or {@code jsonPath} isn't supported
+     */
+    @Autowired
+    public StreamingExtractionService(@Value("${base64.extract.format:auto}") String format,
+            @Value("${base64.extract.json-path:}") String jsonPath,
+            @Value("${base64.extract.xml-element:}") String xmlElement) {
+        this.extractor = new EmbeddedSpanExtractor(EmbeddedSpanExtractor.Format.named(format), jsonPath, xmlElement);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<List<ExtractedSpan>> extract(File file, Path outputDirectory) {
+        GuardAgainst.argumentBeingNull(file, "file");
+
+        try (var source = new FileInputStream(file)) {
+            return extract(source, outputDirectory, file.getName(), file.length());
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<List<ExtractedSpan>> extract(InputStream source, Path outputDirectory, String prefix) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(outputDirectory, "outputDirectory");
+        GuardAgainst.argumentBeingNull(prefix, "prefix");
+
+        return extract(source, outputDirectory, prefix, 0);
+    }
+
+    /**
+     * @param inputLength size of {@code source} if known for statistics, otherwise 0
+     */
+    private Optional<List<ExtractedSpan>> extract(InputStream source, Path outputDirectory, String prefix, long inputLength) {
+        var sample = ConversionStatistics.begin("extract.stream");
+        try {
+            // scanning and decoding are interleaved with reads and writes, so the input and each output are timed
+            var timed = new TimedStreams(sample);
+            Files.createDirectories(outputDirectory);
+            var spans = extractor.extract(timed.input(source), outputDirectory, prefix, timed::output);
+            timed.finish();
+            sample.bytes(inputLength, spans.stream().mapToLong(ExtractedSpan::decodedLength).sum());
+            sample.complete(true);
+            return Optional.of(spans);
+
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            sample.complete(false);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+import moreland.base64.cli.internal.ConversionStatistics;
+import moreland.base64.cli.internal.FramedInputStream;
+import moreland.base64.cli.internal.FramedOutputStream;
+import moreland.base64.cli.internal.GuardAgainst;
+
+/**
+ * {@link SocketEncoderService} over a Unix domain socket. Each connection carries a single request,
+ * an operation byte followed by the input as length prefixed frames (see {@link FramedOutputStream}),
+ * and the result is streamed back as frames while the input is still being read
+ */
+@Service("socketEncoderService")
+@Scope(value = BeanDefinition.SCOPE_SINGLETON)
+public class UnixSocketEncoderService implements SocketEncoderService {
+
+    private static final byte ENCODE_REQUEST = 'E';
+    private static final byte DECODE_REQUEST = 'D';
+    private static final int FRAME_SIZE = 64 * 1024;
+
+    private final EncoderService encoderService;
+    private final Optional<Path> socketPath;
+    private Logger logger = LoggerFactory.getLogger(UnixSocketEncoderService.class);
+
+    public UnixSocketEncoderService(EncoderService encoderService) {
+        this(encoderService, "");
+    }
+
+    /**
+     * @param encoderService encoder used for requests served by this process
+     * @param socketPath default socket path, empty if none is configured
+     */
+    @Autowired
+    public UnixSocketEncoderService(EncoderService encoderService, @Value("${base64.socket:}") String socketPath) {
+        GuardAgainst.argumentBeingNull(encoderService, "encoderService");
+        GuardAgainst.argumentBeingNull(socketPath, "socketPath");
+        this.encoderService = encoderService;
+        this.socketPath = socketPath.isBlank()
+            ? Optional.empty()
+            : Optional.of(Path.of(socketPath));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Path> socketPath() {
+        return socketPath;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean serve(Path socketPath) {
+        GuardAgainst.argumentBeingNull(socketPath, "socketPath");
+
+        if (isServing(socketPath)) {
+            logger.error("{} is already in use", socketPath);
+            return false;
+        }
+
+        ExecutorService executor = Executors.newCachedThreadPool(new ConnectionThreadFactory());
+        try (var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            Files.deleteIfExists(socketPath);
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteSocket(socketPath)));
+            ConversionStatistics.registerMBeans();
+            logger.info("serving on {}", socketPath);
+
+            while (server.isOpen()) {
+                var connection = server.accept();
+                executor.execute(() -> handle(connection));
+            }
+            return true;
+
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return false;
+        } finally {
+            executor.shutdown();
+            deleteSocket(socketPath);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean encode(Path socketPath, InputStream source, OutputStream destination) {
+        return send(socketPath, ENCODE_REQUEST, source, destination);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean decode(Path socketPath, InputStream source, OutputStream destination) {
+        return send(socketPath, DECODE_REQUEST, source, destination);
+    }
+
+    private void handle(SocketChannel connection) {
+        try (connection) {
+            var operation = ByteBuffer.allocate(1);
+            if (connection.read(operation) != 1) {
+                return;
+            }
+
+            var source = new FramedInputStream(connection);
+            var destination = new FramedOutputStream(connection, FRAME_SIZE);
+            boolean result = switch (operation.get(0)) {
+                case ENCODE_REQUEST -> encoderService.encode(source, destination);
+                case DECODE_REQUEST -> encoderService.decode(source, destination);
+                default -> false;
+            };
+
+            if (result) {
+                destination.close();
+            } else {
+                destination.fail(String.format("Request 0x%02x failed, see server log for details", operation.get(0)));
+            }
+        } catch (IOException e) {
+            // most likely the client went away, nothing left to report to
+            logger.warn(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the request on a separate thread while reading the response, the server streams results
+     * back before it has read all input so writing everything first could fill both socket buffers
+     */
+    private boolean send(Path socketPath, byte operation, InputStream source, OutputStream destination) {
+        GuardAgainst.argumentBeingNull(socketPath, "socketPath");
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        try (var connection = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            var writer = new Thread(() -> writeRequest(connection, operation, source), "base64-client-writer");
+            writer.setDaemon(true);
+            writer.start();
+
+            new FramedInputStream(connection).transferTo(destination);
+            destination.flush();
+            return true;
+
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeRequest(SocketChannel connection, byte operation, InputStream source) {
+        try (var request = new FramedOutputStream(connection, FRAME_SIZE)) {
+            var operationBuffer = ByteBuffer.allocate(1).put(0, operation);
+            while (operationBuffer.hasRemaining()) {
+                connection.write(operationBuffer);
+            }
+            source.transferTo(request);
+        } catch (IOException e) {
+            // the server stops reading once a request fails, its error frame is reported by the reading side
+            logger.debug(e.getMessage());
+        }
+    }
+
+    private boolean isServing(Path socketPath) {
+        if (!Files.exists(socketPath)) {
+            return false;
+        }
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteSocket(Path socketPath) {
+        try {
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            logger.warn(e.getMessage());
+        }
+    }
+
+    /**
+     * Daemon threads so a stopped server doesn't wait on idle connections
+     */
+    private static class ConnectionThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var thread = new Thread(runnable, "base64-connection-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
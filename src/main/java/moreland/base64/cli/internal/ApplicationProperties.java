@@ -0,0 +1,81 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Minimal stand in for the Spring environment used when the CLI starts without an application context;
+ * values come from {@code application.properties}, overridden by system properties and then by
+ * {@code --name=value} arguments, matching the precedence Spring Boot would apply
+ */
+public class ApplicationProperties {
+
+    private static final String RESOURCE_NAME = "/application.properties";
+    private static final String OPTION_PREFIX = "--";
+
+    private final Properties properties;
+
+    private ApplicationProperties(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param arguments command line arguments, only those of the form {@code --name=value} are used
+     * @return properties merged from all sources
+     * @throws IOException if {@code application.properties} can't be read
+     */
+    public static ApplicationProperties load(String... arguments) throws IOException {
+        GuardAgainst.argumentBeingNull(arguments, "arguments");
+
+        var properties = new Properties();
+        try (InputStream resource = ApplicationProperties.class.getResourceAsStream(RESOURCE_NAME)) {
+            if (resource != null) {
+                properties.load(resource);
+            }
+        }
+        properties.putAll(System.getProperties());
+
+        for (var argument : arguments) {
+            int separator = argument.indexOf('=');
+            if (argument.startsWith(OPTION_PREFIX) && separator > OPTION_PREFIX.length()) {
+                properties.setProperty(argument.substring(OPTION_PREFIX.length(), separator), argument.substring(separator + 1));
+            }
+        }
+        return new ApplicationProperties(properties);
+    }
+
+    public String getString(String name, String defaultValue) {
+        return properties.getProperty(name, defaultValue).trim();
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(name, Boolean.toString(defaultValue)));
+    }
+
+    /**
+     * @throws NumberFormatException if the value isn't an integer
+     */
+    public int getInt(String name, int defaultValue) {
+        return Integer.parseInt(getString(name, Integer.toString(defaultValue)));
+    }
+
+    /**
+     * @throws NumberFormatException if the value isn't an integer
+     */
+    public long getLong(String name, long defaultValue) {
+        return Long.parseLong(getString(name, Long.toString(defaultValue)));
+    }
+}
@@ -0,0 +1,59 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The 64 characters values are encoded to; the alphabets differ only in the characters for 62 and 63
+ */
+public enum Base64Alphabet {
+    /**
+     * RFC 4648 section 4, ends in {@code +} and {@code /}
+     */
+    STANDARD('+', '/'),
+    /**
+     * RFC 4648 section 5, ends in {@code -} and {@code _} so encoded values can be used in URLs and file names
+     */
+    URL_SAFE('-', '_');
+
+    final byte[] encodeTable;
+
+    Base64Alphabet(char value62, char value63) {
+        encodeTable = ("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789" + value62 + value63)
+            .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @param value 6 bit value
+     * @return character {@code value} is encoded as
+     */
+    public byte character(int value) {
+        return encodeTable[value];
+    }
+
+    /**
+     * @param name {@code standard} or {@code url-safe}, ignoring case
+     * @return the named alphabet
+     * @throws IllegalArgumentException if {@code name} is not a known alphabet
+     */
+    public static Base64Alphabet named(String name) {
+        GuardAgainst.argumentBeingNull(name, "name");
+
+        return switch (name.toLowerCase()) {
+            case "standard" -> STANDARD;
+            case "url-safe" -> URL_SAFE;
+            default -> throw new IllegalArgumentException("Unknown base64 alphabet " + name);
+        };
+    }
+}
@@ -0,0 +1,498 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+
+/**
+ * Table driven Base64 routines working directly on caller supplied arrays
+ */
+public final class Base64Codec {
+
+    static final byte[] ENCODE_TABLE = Base64Alphabet.STANDARD.encodeTable;
+    private static final byte PAD = '=';
+
+    static final int INVALID_VALUE = -1;
+    static final int WHITESPACE_VALUE = -2;
+    static final int PAD_VALUE = -3;
+    /**
+     * maps a character, from either alphabet, to its 6 bit value or one of the negative markers above
+     */
+    static final int[] DECODE_TABLE = new int[256];
+
+    static {
+        Arrays.fill(DECODE_TABLE, INVALID_VALUE);
+        for (var alphabet : Base64Alphabet.values()) {
+            for (int i = 0; i < alphabet.encodeTable.length; i++) {
+                DECODE_TABLE[alphabet.encodeTable[i]] = i;
+            }
+        }
+        DECODE_TABLE[' '] = WHITESPACE_VALUE;
+        DECODE_TABLE['\t'] = WHITESPACE_VALUE;
+        DECODE_TABLE['\r'] = WHITESPACE_VALUE;
+        DECODE_TABLE['\n'] = WHITESPACE_VALUE;
+        DECODE_TABLE[PAD] = PAD_VALUE;
+    }
+
+    private Base64Codec() {
+        // hidden constructor for "static" class
+    }
+
+    /**
+     * @param character character to test
+     * @return true if {@code character} is a space, tab or line break
+     */
+    public static boolean isWhitespace(byte character) {
+        return DECODE_TABLE[character & 0xFF] == WHITESPACE_VALUE;
+    }
+
+    /**
+     * Exact length of the padded encoding of {@code sourceLength} bytes
+     * @param sourceLength number of bytes to encode
+     * @return number of encoded characters
+     * @throws IllegalArgumentException if the encoded length would exceed {@link Integer#MAX_VALUE}
+     */
+    public static int encodedLength(int sourceLength) {
+        long length = ((long) sourceLength + 2) / 3 * 4;
+        if (sourceLength < 0 || length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("sourceLength");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Exact number of bytes decoded from {@code length} characters of {@code source}, with or without
+     * padding; input is expected to contain no whitespace
+     * @param source base64 encoded characters
+     * @param offset offset of first character
+     * @param length number of characters
+     * @return number of decoded bytes
+     * @throws Base64FormatException if {@code length} cannot be a valid encoding
+     */
+    public static int decodedLength(byte[] source, int offset, int length) {
+        GuardAgainst.argumentBeingNull(source, "source");
+
+        int end = offset + length;
+        int padding = 0;
+        while (padding < 2 && end > offset && source[end - 1] == PAD) {
+            end--;
+            padding++;
+        }
+        return decodedLength(end - offset, padding, length);
+    }
+
+    /**
+     * Encodes {@code length} bytes of {@code source} starting at {@code offset} including any padding
+     * @param source bytes to encode
+     * @param offset offset of first byte in {@code source}
+     * @param length number of bytes to encode
+     * @param destination buffer receiving the encoded characters, requires {@link #encodedLength(int)} bytes
+     * @param destinationOffset offset of first character written in {@code destination}
+     * @return number of characters written
+     */
+    public static int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        return encode(source, offset, length, destination, destinationOffset, ENCODE_TABLE);
+    }
+
+    /**
+     * as {@link #encode(byte[], int, int, byte[], int)} using the characters of {@code table}
+     */
+    static int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset, byte[] table) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int index = offset;
+        int wholeGroupsEnd = offset + length / 3 * 3;
+        int written = destinationOffset;
+
+        while (index < wholeGroupsEnd) {
+            int group = (source[index] & 0xFF) << 16 | (source[index + 1] & 0xFF) << 8 | (source[index + 2] & 0xFF);
+            destination[written] = table[group >>> 18];
+            destination[written + 1] = table[(group >>> 12) & 0x3F];
+            destination[written + 2] = table[(group >>> 6) & 0x3F];
+            destination[written + 3] = table[group & 0x3F];
+            index += 3;
+            written += 4;
+        }
+
+        int remaining = offset + length - index;
+        if (remaining > 0) {
+            int group = (source[index] & 0xFF) << 16 | (remaining == 2 ? (source[index + 1] & 0xFF) << 8 : 0);
+            destination[written] = table[group >>> 18];
+            destination[written + 1] = table[(group >>> 12) & 0x3F];
+            destination[written + 2] = remaining == 2 ? table[(group >>> 6) & 0x3F] : PAD;
+            destination[written + 3] = PAD;
+            written += 4;
+        }
+
+        return written - destinationOffset;
+    }
+
+    /**
+     * Decodes {@code length} characters of {@code source}, with or without padding but without whitespace
+     * @param source base64 encoded characters
+     * @param offset offset of first character in {@code source}
+     * @param length number of characters to decode
+     * @param destination buffer receiving the decoded bytes, requires {@link #decodedLength(byte[], int, int)} bytes
+     * @param destinationOffset offset of first byte written in {@code destination}
+     * @return number of bytes written
+     * @throws Base64FormatException if {@code source} is not valid base64
+     */
+    public static int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        return decode(source, offset, length, destination, destinationOffset, 0);
+    }
+
+    /**
+     * as {@link #decode(byte[], int, int, byte[], int)} with reported offsets starting from {@code reportedOffset}
+     */
+    static int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset, long reportedOffset) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int end = offset + length;
+        int padding = 0;
+        while (padding < 2 && end > offset && source[end - 1] == PAD) {
+            end--;
+            padding++;
+        }
+        int characters = end - offset;
+        if (characters % 4 == 1 || (padding > 0 && length % 4 != 0)) {
+            throw invalidLength(length, reportedOffset + length);
+        }
+
+        int index = offset;
+        int wholeGroupsEnd = offset + characters / 4 * 4;
+        int written = destinationOffset;
+
+        while (index < wholeGroupsEnd) {
+            int a = DECODE_TABLE[source[index] & 0xFF];
+            int b = DECODE_TABLE[source[index + 1] & 0xFF];
+            int c = DECODE_TABLE[source[index + 2] & 0xFF];
+            int d = DECODE_TABLE[source[index + 3] & 0xFF];
+            if ((a | b | c | d) < 0) {
+                throw illegalCharacter(source, index, offset, reportedOffset);
+            }
+            int group = a << 18 | b << 12 | c << 6 | d;
+            destination[written] = (byte) (group >> 16);
+            destination[written + 1] = (byte) (group >> 8);
+            destination[written + 2] = (byte) group;
+            index += 4;
+            written += 3;
+        }
+
+        int remaining = end - index;
+        if (remaining > 0) {
+            int a = DECODE_TABLE[source[index] & 0xFF];
+            int b = DECODE_TABLE[source[index + 1] & 0xFF];
+            int c = remaining == 3 ? DECODE_TABLE[source[index + 2] & 0xFF] : 0;
+            if ((a | b | c) < 0) {
+                throw illegalCharacter(source, index, offset, reportedOffset);
+            }
+            int group = a << 18 | b << 12 | c << 6;
+            destination[written++] = (byte) (group >> 16);
+            if (remaining == 3) {
+                destination[written++] = (byte) (group >> 8);
+            }
+        }
+
+        return written - destinationOffset;
+    }
+
+    /**
+     * Exact number of bytes decoded from {@code length} characters of {@code source}, as
+     * {@link #decodedLength(byte[], int, int)} without first converting the characters to bytes
+     * @param source base64 encoded characters
+     * @param offset offset of first character
+     * @param length number of characters
+     * @return number of decoded bytes
+     * @throws Base64FormatException if {@code length} cannot be a valid encoding
+     */
+    public static int decodedLength(CharSequence source, int offset, int length) {
+        GuardAgainst.argumentBeingNull(source, "source");
+
+        int end = offset + length;
+        int padding = 0;
+        while (padding < 2 && end > offset && source.charAt(end - 1) == PAD) {
+            end--;
+            padding++;
+        }
+        return decodedLength(end - offset, padding, length);
+    }
+
+    /**
+     * Exact number of bytes decoded from {@code length} characters of {@code source}, as
+     * {@link #decodedLength(byte[], int, int)} without first converting the characters to bytes
+     * @param source base64 encoded characters
+     * @param offset offset of first character
+     * @param length number of characters
+     * @return number of decoded bytes
+     * @throws Base64FormatException if {@code length} cannot be a valid encoding
+     */
+    public static int decodedLength(char[] source, int offset, int length) {
+        GuardAgainst.argumentBeingNull(source, "source");
+
+        int end = offset + length;
+        int padding = 0;
+        while (padding < 2 && end > offset && source[end - 1] == PAD) {
+            end--;
+            padding++;
+        }
+        return decodedLength(end - offset, padding, length);
+    }
+
+    private static int decodedLength(int characters, int padding, int length) {
+        if (characters % 4 == 1 || (padding > 0 && length % 4 != 0)) {
+            throw invalidLength(length, length);
+        }
+        return characters / 4 * 3 + Math.max(0, characters % 4 - 1);
+    }
+
+    /**
+     * Decodes {@code length} characters of {@code source} read one at a time, as
+     * {@link #decode(byte[], int, int, byte[], int)} without first converting them to bytes;
+     * characters outside Latin-1 are rejected like any other illegal character
+     * @param source base64 encoded characters
+     * @param offset offset of first character in {@code source}
+     * @param length number of characters to decode
+     * @param destination buffer receiving the decoded bytes, requires {@link #decodedLength(CharSequence, int, int)} bytes
+     * @param destinationOffset offset of first byte written in {@code destination}
+     * @return number of bytes written
+     * @throws Base64FormatException if {@code source} is not valid base64
+     */
+    public static int decode(CharSequence source, int offset, int length, byte[] destination, int destinationOffset) {
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int end = offset + decodedLength(source, offset, length) / 3 * 4;
+        int remaining = length - (end - offset);
+        int written = destinationOffset;
+
+        for (int index = offset; index < end; index += 4) {
+            int a = valueOf(source.charAt(index));
+            int b = valueOf(source.charAt(index + 1));
+            int c = valueOf(source.charAt(index + 2));
+            int d = valueOf(source.charAt(index + 3));
+            if ((a | b | c | d) < 0) {
+                throw illegalCharacter(source, index, offset);
+            }
+            int group = a << 18 | b << 12 | c << 6 | d;
+            destination[written] = (byte) (group >> 16);
+            destination[written + 1] = (byte) (group >> 8);
+            destination[written + 2] = (byte) group;
+            written += 3;
+        }
+
+        if (remaining > 0 && source.charAt(end + 1) != PAD) {
+            int a = valueOf(source.charAt(end));
+            int b = valueOf(source.charAt(end + 1));
+            boolean three = remaining > 2 && source.charAt(end + 2) != PAD;
+            int c = three ? valueOf(source.charAt(end + 2)) : 0;
+            if ((a | b | c) < 0) {
+                throw illegalCharacter(source, end, offset);
+            }
+            written = writePartialGroup(a << 18 | b << 12 | c << 6, three, destination, written);
+        } else if (remaining > 0) {
+            throw illegalCharacter(source, end, offset);
+        }
+
+        return written - destinationOffset;
+    }
+
+    /**
+     * Decodes {@code length} characters of {@code source}, as {@link #decode(byte[], int, int, byte[], int)}
+     * without first converting them to bytes; characters outside Latin-1 are rejected like any other illegal character
+     * @param source base64 encoded characters
+     * @param offset offset of first character in {@code source}
+     * @param length number of characters to decode
+     * @param destination buffer receiving the decoded bytes, requires {@link #decodedLength(char[], int, int)} bytes
+     * @param destinationOffset offset of first byte written in {@code destination}
+     * @return number of bytes written
+     * @throws Base64FormatException if {@code source} is not valid base64
+     */
+    public static int decode(char[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int end = offset + decodedLength(source, offset, length) / 3 * 4;
+        int remaining = length - (end - offset);
+        int written = destinationOffset;
+
+        for (int index = offset; index < end; index += 4) {
+            int a = valueOf(source[index]);
+            int b = valueOf(source[index + 1]);
+            int c = valueOf(source[index + 2]);
+            int d = valueOf(source[index + 3]);
+            if ((a | b | c | d) < 0) {
+                throw illegalCharacter(CharBuffer.wrap(source), index, offset);
+            }
+            int group = a << 18 | b << 12 | c << 6 | d;
+            destination[written] = (byte) (group >> 16);
+            destination[written + 1] = (byte) (group >> 8);
+            destination[written + 2] = (byte) group;
+            written += 3;
+        }
+
+        if (remaining > 0 && source[end + 1] != PAD) {
+            int a = valueOf(source[end]);
+            int b = valueOf(source[end + 1]);
+            boolean three = remaining > 2 && source[end + 2] != PAD;
+            int c = three ? valueOf(source[end + 2]) : 0;
+            if ((a | b | c) < 0) {
+                throw illegalCharacter(CharBuffer.wrap(source), end, offset);
+            }
+            written = writePartialGroup(a << 18 | b << 12 | c << 6, three, destination, written);
+        } else if (remaining > 0) {
+            throw illegalCharacter(CharBuffer.wrap(source), end, offset);
+        }
+
+        return written - destinationOffset;
+    }
+
+    private static int valueOf(char character) {
+        return character < DECODE_TABLE.length ? DECODE_TABLE[character] : INVALID_VALUE;
+    }
+
+    private static int writePartialGroup(int group, boolean three, byte[] destination, int written) {
+        destination[written++] = (byte) (group >> 16);
+        if (three) {
+            destination[written++] = (byte) (group >> 8);
+        }
+        return written;
+    }
+
+    private static Base64FormatException illegalCharacter(CharSequence source, int groupStart, int offset) {
+        int index = groupStart;
+        while (valueOf(source.charAt(index)) >= 0) {
+            index++;
+        }
+        return illegalCharacter(source.charAt(index), index - offset);
+    }
+
+    private static Base64FormatException illegalCharacter(byte[] source, int groupStart, int offset, long reportedOffset) {
+        int index = groupStart;
+        while (DECODE_TABLE[source[index] & 0xFF] >= 0) {
+            index++;
+        }
+        return illegalCharacter(source[index] & 0xFF, reportedOffset + index - offset);
+    }
+
+    private static Base64FormatException illegalCharacter(int character, long characterOffset) {
+        return new Base64FormatException(String.format("Illegal base64 character 0x%02x at offset %d",
+            character, characterOffset), characterOffset);
+    }
+
+    private static Base64FormatException invalidLength(int length, long endOffset) {
+        return new Base64FormatException("Invalid base64 length " + length, endOffset);
+    }
+
+    /**
+     * Decodes as many whole groups from {@code source} as fit in {@code destination}, advancing both;
+     * a padded group, or an unpadded trailing group of 2 or 3 characters, is only decoded once
+     * {@code endOfInput} is true so that input following it in a later call is still rejected
+     * @param source base64 encoded characters without whitespace, heap or direct
+     * @param destination buffer receiving the decoded bytes, heap or direct
+     * @param endOfInput true if no further input follows {@code source}
+     * @return {@link CoderResult#UNDERFLOW} once all decodable input is consumed,
+     *         {@link CoderResult#OVERFLOW} if {@code destination} is full or a malformed result with
+     *         {@code source} positioned at the start of the offending group
+     */
+    public static CoderResult decode(ByteBuffer source, ByteBuffer destination, boolean endOfInput) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int index = source.position();
+        int limit = source.limit();
+        int written = destination.position();
+        var result = CoderResult.UNDERFLOW;
+
+        while (limit - index >= 4) {
+            int a = DECODE_TABLE[source.get(index) & 0xFF];
+            int b = DECODE_TABLE[source.get(index + 1) & 0xFF];
+            int c = DECODE_TABLE[source.get(index + 2) & 0xFF];
+            int d = DECODE_TABLE[source.get(index + 3) & 0xFF];
+
+            int count;
+            if ((a | b | c | d) >= 0) {
+                count = 3;
+            } else if ((a | b) >= 0 && c >= 0 && d == PAD_VALUE) {
+                count = 2;
+                c = c << 6;
+            } else if ((a | b) >= 0 && c == PAD_VALUE && d == PAD_VALUE) {
+                count = 1;
+                c = 0;
+            } else {
+                result = CoderResult.malformedForLength(4);
+                break;
+            }
+            if (count < 3 && limit - index > 4) {
+                // padding is only valid in the final group
+                result = CoderResult.malformedForLength(4);
+                break;
+            }
+            if (count < 3 && !endOfInput) {
+                // whether it is the final group isn't known until the end of input, left for a later call
+                break;
+            }
+            if (destination.limit() - written < count) {
+                result = CoderResult.OVERFLOW;
+                break;
+            }
+
+            int group = a << 18 | b << 12 | (count == 3 ? c << 6 | d : c);
+            destination.put(written++, (byte) (group >> 16));
+            if (count > 1) {
+                destination.put(written++, (byte) (group >> 8));
+            }
+            if (count > 2) {
+                destination.put(written++, (byte) group);
+            }
+            index += 4;
+        }
+
+        int remaining = limit - index;
+        if (result == CoderResult.UNDERFLOW && endOfInput && remaining > 0) {
+            result = decodeUnpaddedTail(source, index, remaining, destination, written);
+            if (result == CoderResult.UNDERFLOW) {
+                written += remaining - 1;
+                index = limit;
+            }
+        }
+
+        source.position(index);
+        destination.position(written);
+        return result;
+    }
+
+    private static CoderResult decodeUnpaddedTail(ByteBuffer source, int index, int remaining, ByteBuffer destination, int written) {
+        if (remaining == 1) {
+            return CoderResult.malformedForLength(1);
+        }
+        int a = DECODE_TABLE[source.get(index) & 0xFF];
+        int b = DECODE_TABLE[source.get(index + 1) & 0xFF];
+        int c = remaining == 3 ? DECODE_TABLE[source.get(index + 2) & 0xFF] : 0;
+        if ((a | b | c) < 0) {
+            return CoderResult.malformedForLength(remaining);
+        }
+        if (destination.limit() - written < remaining - 1) {
+            return CoderResult.OVERFLOW;
+        }
+
+        int group = a << 18 | b << 12 | c << 6;
+        destination.put(written, (byte) (group >> 16));
+        if (remaining == 3) {
+            destination.put(written + 1, (byte) (group >> 8));
+        }
+        return CoderResult.UNDERFLOW;
+    }
+}
@@ -0,0 +1,92 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Core block encoder/decoder used by {@code Base64EncoderService}; implementations trade off
+ * portability against throughput and are selected by name through the {@code base64.engine} property
+ */
+public interface Base64Engine {
+
+    /**
+     * @return name used to select this engine
+     */
+    String name();
+
+    /**
+     * Encodes {@code length} bytes of {@code source} including any padding using the standard alphabet
+     * @param source bytes to encode
+     * @param offset offset of first byte in {@code source}
+     * @param length number of bytes to encode
+     * @param destination buffer receiving the encoded characters, requires {@link Base64Codec#encodedLength(int)} bytes
+     * @param destinationOffset offset of first character written in {@code destination}
+     * @return number of characters written
+     */
+    default int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        return encode(source, offset, length, destination, destinationOffset, Base64Alphabet.STANDARD);
+    }
+
+    /**
+     * Encodes {@code length} bytes of {@code source} including any padding
+     * @param source bytes to encode
+     * @param offset offset of first byte in {@code source}
+     * @param length number of bytes to encode
+     * @param destination buffer receiving the encoded characters, requires {@link Base64Codec#encodedLength(int)} bytes
+     * @param destinationOffset offset of first character written in {@code destination}
+     * @param alphabet characters values are encoded as
+     * @return number of characters written
+     */
+    int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset, Base64Alphabet alphabet);
+
+    /**
+     * Decodes {@code length} characters of {@code source}, from either alphabet, with or without padding but without whitespace
+     * @param source base64 encoded characters
+     * @param offset offset of first character in {@code source}
+     * @param length number of characters to decode
+     * @param destination buffer receiving the decoded bytes, requires {@link Base64Codec#decodedLength(byte[], int, int)} bytes
+     * @param destinationOffset offset of first byte written in {@code destination}
+     * @return number of bytes written
+     * @throws IllegalArgumentException if {@code source} is not valid base64
+     */
+    int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset);
+
+    /**
+     * @param name engine name, one of {@code jdk}, {@code scalar}, {@code swar} or {@code vector}
+     * @return the named engine
+     * @throws IllegalArgumentException if {@code name} is not a known engine
+     */
+    static Base64Engine named(String name) {
+        GuardAgainst.argumentBeingNull(name, "name");
+
+        return switch (name.toLowerCase()) {
+            case JdkBase64Engine.NAME -> new JdkBase64Engine();
+            case ScalarBase64Engine.NAME -> new ScalarBase64Engine();
+            case SwarBase64Engine.NAME -> new SwarBase64Engine();
+            case VectorBase64Engine.NAME -> vectorOrFallback();
+            default -> throw new IllegalArgumentException("Unknown base64 engine " + name);
+        };
+    }
+
+    private static Base64Engine vectorOrFallback() {
+        try {
+            return new VectorBase64Engine();
+        } catch (LinkageError | UnsupportedOperationException e) {
+            // jdk.incubator.vector wasn't added to the module graph or the hardware has no useful vector width
+            LoggerFactory.getLogger(Base64Engine.class)
+                .warn("vector engine unavailable, using {}: {}", SwarBase64Engine.NAME, e.toString());
+            return new SwarBase64Engine();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base of the encoding and decoding {@link Flow.Processor}s; converts upstream buffers as they arrive
+ * into output chunks of a fixed size, a chunk is only published once full or at the end of input.
+ * <p>
+ * Back-pressure is passed on one item at a time, upstream is only asked for another buffer while the
+ * subscriber has outstanding demand and no completed chunk is waiting, so at most one upstream item's
+ * worth of output is ever held. Conversion runs on the thread delivering upstream signals; delivery to
+ * the single subscriber is serialised through {@link #drain()} whichever thread requests or produces.
+ */
+public abstract class Base64FlowProcessor implements Flow.Processor<ByteBuffer, ByteBuffer> {
+
+    /**
+     * smallest chunk able to hold a complete encoded group
+     */
+    public static final int MINIMUM_CHUNK_SIZE = 4;
+
+    private final int chunkSize;
+    private final Queue<ByteBuffer> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private final AtomicBoolean upstreamRequested = new AtomicBoolean();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super ByteBuffer> downstream;
+    private volatile boolean done;
+    private volatile boolean terminated;
+    private volatile Throwable error;
+    private ByteBuffer chunk;
+
+    /**
+     * @param chunkSize maximum size of each published buffer, at least {@link #MINIMUM_CHUNK_SIZE}
+     */
+    protected Base64FlowProcessor(int chunkSize) {
+        if (chunkSize < MINIMUM_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunkSize must be at least " + MINIMUM_CHUNK_SIZE);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Converts all remaining bytes of {@code source}, writing to {@link #chunk()} and calling
+     * {@link #publishChunk()} whenever it has too little room; partial groups are carried to the next call
+     * @throws IllegalArgumentException if {@code source} can't be converted
+     */
+    protected abstract void convert(ByteBuffer source);
+
+    /**
+     * Completes any carried partial group once upstream has completed
+     * @throws IllegalArgumentException if input ended partway through a group
+     */
+    protected abstract void finish();
+
+    /**
+     * @return chunk currently being filled
+     */
+    protected final ByteBuffer chunk() {
+        if (chunk == null) {
+            chunk = ByteBuffer.allocate(chunkSize);
+        }
+        return chunk;
+    }
+
+    /**
+     * Queues the current chunk for the subscriber, if it holds anything, and starts a new one
+     */
+    protected final void publishChunk() {
+        if (chunk != null && chunk.position() > 0) {
+            ready.add(chunk.flip());
+            chunk = null;
+        }
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        GuardAgainst.argumentBeingNull(subscriber, "subscriber");
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new RejectedSubscription());
+            subscriber.onError(new IllegalStateException("Only a single subscriber is supported"));
+            return;
+        }
+        subscriber.onSubscribe(new DownstreamSubscription());
+        downstream = subscriber;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        GuardAgainst.argumentBeingNull(subscription, "subscription");
+
+        if (upstream != null || terminated) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        GuardAgainst.argumentBeingNull(item, "item");
+        if (done || terminated) {
+            return;
+        }
+
+        try {
+            convert(item.duplicate());
+        } catch (IllegalArgumentException e) {
+            upstream.cancel();
+            done = true;
+            error = e;
+        }
+        upstreamRequested.set(false);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        GuardAgainst.argumentBeingNull(throwable, "throwable");
+        if (done) {
+            return;
+        }
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        if (done) {
+            return;
+        }
+        try {
+            finish();
+            publishChunk();
+        } catch (IllegalArgumentException e) {
+            error = e;
+        }
+        done = true;
+        drain();
+    }
+
+    /**
+     * Delivers ready chunks and terminal signals to the subscriber and requests more input when needed;
+     * only one thread drains at a time, calls arriving meanwhile make that thread loop again
+     */
+    private void drain() {
+        if (pendingDrains.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            var subscriber = downstream;
+            if (subscriber != null && !terminated) {
+                deliver(subscriber);
+            }
+            if (terminated) {
+                ready.clear();
+            }
+            missed = pendingDrains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void deliver(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        var failure = error;
+        if (failure != null) {
+            terminated = true;
+            subscriber.onError(failure);
+            return;
+        }
+
+        long requested = demand.get();
+        long emitted = 0;
+        while (emitted != requested && !terminated) {
+            var next = ready.poll();
+            if (next == null) {
+                break;
+            }
+            subscriber.onNext(next);
+            emitted++;
+        }
+        if (emitted > 0 && requested != Long.MAX_VALUE) {
+            demand.addAndGet(-emitted);
+        }
+
+        if (terminated || !ready.isEmpty()) {
+            return;
+        }
+        if (done) {
+            terminated = true;
+            subscriber.onComplete();
+        } else if (demand.get() > 0 && upstream != null && upstreamRequested.compareAndSet(false, true)) {
+            upstream.request(1);
+        }
+    }
+
+    private void cancelUpstream() {
+        var subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private class DownstreamSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelUpstream();
+                error = new IllegalArgumentException("non-positive subscription request: " + n);
+                done = true;
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            terminated = true;
+            cancelUpstream();
+            drain();
+        }
+    }
+
+    private static class RejectedSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            // nothing will be delivered
+        }
+
+        @Override
+        public void cancel() {
+            // nothing to cancel
+        }
+    }
+}
@@ -0,0 +1,42 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+/**
+ * Thrown when input is not valid base64, carrying the offset of the offending character so callers
+ * can report it without parsing the message
+ */
+public class Base64FormatException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long offset;
+
+    /**
+     * @param message description of the problem, including the offset
+     * @param offset offset within the input of the offending character, or of the end of input
+     *        if the input ended partway through a group
+     */
+    public Base64FormatException(String message, long offset) {
+        super(message);
+        this.offset = offset;
+    }
+
+    /**
+     * @return offset within the input of the offending character, or of the end of input if the input
+     *         ended partway through a group
+     */
+    public long offset() {
+        return offset;
+    }
+}
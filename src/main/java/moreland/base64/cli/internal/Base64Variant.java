@@ -0,0 +1,279 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CoderResult;
+
+/**
+ * Form of encoded output: alphabet, whether the final group is padded and whether, and how, output is
+ * wrapped into lines. Every option is applied as characters are written, the engine encodes a line of
+ * whole groups straight into its final position and separators and the final group are written around it,
+ * so no variant costs a second pass over the output
+ * <p>
+ * Line separators come before every line but the first, as {@link java.util.Base64#getMimeEncoder()} writes
+ * them, so the encoding of input that is a multiple of 3 bytes long is always a prefix of the encoding of
+ * anything appended to it; encoding can resume at any such offset given the number of bytes already encoded
+ * @param alphabet characters values are encoded as
+ * @param padding if true the final group is padded with {@code =} to 4 characters
+ * @param lineLength characters per line, rounded down to a multiple of 4; 0 for no line breaks
+ * @param lineSeparator whitespace written between lines so it is skipped when decoding
+ */
+public record Base64Variant(Base64Alphabet alphabet, boolean padding, int lineLength, String lineSeparator) {
+
+    public static final int MIME_LINE_LENGTH = 76;
+    public static final String CRLF = "\r\n";
+    public static final String LF = "\n";
+
+    public static final Base64Variant BASIC = new Base64Variant(Base64Alphabet.STANDARD, true, 0, CRLF);
+    public static final Base64Variant URL_SAFE = new Base64Variant(Base64Alphabet.URL_SAFE, true, 0, CRLF);
+    public static final Base64Variant MIME = new Base64Variant(Base64Alphabet.STANDARD, true, MIME_LINE_LENGTH, CRLF);
+
+    private static final byte PAD = '=';
+
+    /**
+     * @throws IllegalArgumentException if {@code lineLength} is negative or {@code lineSeparator} is empty
+     *         or contains anything but spaces, tabs and line breaks
+     */
+    public Base64Variant {
+        GuardAgainst.argumentBeingNull(alphabet, "alphabet");
+        GuardAgainst.argumentBeingNull(lineSeparator, "lineSeparator");
+        if (lineLength < 0) {
+            throw new IllegalArgumentException("lineLength");
+        }
+        if (lineSeparator.isEmpty() || !lineSeparator.chars().allMatch(c -> c < 0x80 && Base64Codec.isWhitespace((byte) c))) {
+            throw new IllegalArgumentException("lineSeparator must be spaces, tabs or line breaks");
+        }
+        lineLength = lineLength / 4 * 4;
+    }
+
+    /**
+     * Variant built from the {@code base64.encoder.*} properties
+     * @param alphabet {@code standard} or {@code url-safe}
+     * @param padding if true the final group is padded
+     * @param lineLength characters per line, 0 for no line breaks
+     * @param lineSeparator {@code crlf} or {@code lf}
+     * @return the described variant
+     * @throws IllegalArgumentException if any value is not recognised
+     */
+    public static Base64Variant named(String alphabet, boolean padding, int lineLength, String lineSeparator) {
+        GuardAgainst.argumentBeingNull(lineSeparator, "lineSeparator");
+
+        var separator = switch (lineSeparator.toLowerCase()) {
+            case "crlf" -> CRLF;
+            case "lf" -> LF;
+            default -> throw new IllegalArgumentException("Unknown line separator " + lineSeparator);
+        };
+        return new Base64Variant(Base64Alphabet.named(alphabet), padding, lineLength, separator);
+    }
+
+    /**
+     * @return this variant without padding
+     */
+    public Base64Variant withoutPadding() {
+        return new Base64Variant(alphabet, false, lineLength, lineSeparator);
+    }
+
+    /**
+     * Exact length of the encoding of {@code sourceLength} bytes, including padding and line separators
+     * @param sourceLength number of bytes to encode
+     * @return number of encoded characters
+     */
+    public long encodedLength(long sourceLength) {
+        if (sourceLength < 0) {
+            throw new IllegalArgumentException("sourceLength");
+        }
+        long characters = padding
+            ? (sourceLength + 2) / 3 * 4
+            : (sourceLength * 4 + 2) / 3;
+        if (lineLength > 0 && characters > 0) {
+            characters += (characters - 1) / lineLength * lineSeparator.length();
+        }
+        return characters;
+    }
+
+    /**
+     * Largest multiple of 3 bytes whose encoding is certain to fit in {@code encodedCapacity} characters
+     * wherever in a line it starts, used to size blocks of streamed input to fixed output buffers
+     * @param encodedCapacity size of the output buffer
+     * @return number of bytes to encode per block, at least 3
+     */
+    public int maxSourceLength(int encodedCapacity) {
+        long characters = encodedCapacity;
+        if (lineLength > 0) {
+            // a block may start with a separator and then cross one more line boundary per lineLength characters
+            characters = (encodedCapacity - (long) lineSeparator.length()) * lineLength / (lineLength + lineSeparator.length());
+        }
+        return (int) Math.max(3, characters / 4 * 3);
+    }
+
+    /**
+     * Encodes {@code length} bytes of {@code source} continuing an encoding of which {@code sourcePosition}
+     * bytes have already been written
+     * @param engine engine encoding whole groups
+     * @param source bytes to encode
+     * @param offset offset of first byte in {@code source}
+     * @param length number of bytes to encode, a multiple of 3 unless {@code endOfInput}
+     * @param destination buffer receiving the encoded characters, requires
+     *        {@code encodedLength(sourcePosition + length) - encodedLength(sourcePosition)} bytes
+     * @param destinationOffset offset of first character written in {@code destination}
+     * @param sourcePosition bytes of the same input already encoded, a multiple of 3
+     * @param endOfInput true if no input follows, the final 1 or 2 bytes are only encoded if so
+     * @return number of characters written
+     */
+    public int encode(Base64Engine engine, byte[] source, int offset, int length, byte[] destination,
+            int destinationOffset, long sourcePosition, boolean endOfInput) {
+        GuardAgainst.argumentBeingNull(engine, "engine");
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int index = offset;
+        int wholeGroupsEnd = offset + length / 3 * 3;
+        int written = destinationOffset;
+        long character = sourcePosition / 3 * 4;
+
+        while (index < wholeGroupsEnd) {
+            int count = wholeGroupsEnd - index;
+            if (lineLength > 0) {
+                int column = (int) (character % lineLength);
+                if (column == 0 && character > 0) {
+                    written = putSeparator(destination, written);
+                }
+                count = Math.min(count, (lineLength - column) / 4 * 3);
+            }
+            written += engine.encode(source, index, count, destination, written, alphabet);
+            index += count;
+            character += count / 3 * 4;
+        }
+
+        int remaining = offset + length - index;
+        if (endOfInput && remaining > 0) {
+            if (startsLine(character)) {
+                written = putSeparator(destination, written);
+            }
+            int group = (source[index] & 0xFF) << 16 | (remaining == 2 ? (source[index + 1] & 0xFF) << 8 : 0);
+            for (int i = 0, characters = finalGroupLength(remaining); i < characters; i++) {
+                destination[written++] = finalGroupCharacter(group, remaining, i);
+            }
+        }
+        return written - destinationOffset;
+    }
+
+    /**
+     * Encodes as many groups from {@code source} as fit in {@code destination}, advancing both, continuing an
+     * encoding of which {@code sourcePosition} bytes have already been written; a trailing 1 or 2 byte group is
+     * only encoded once {@code endOfInput} is true. A separator is only written along with the group following it
+     * @param source bytes to encode, heap or direct
+     * @param destination buffer receiving the encoded characters, heap or direct
+     * @param sourcePosition bytes of the same input encoded before the position of {@code source}, a multiple of 3
+     * @param endOfInput true if no further input follows {@code source}
+     * @return {@link CoderResult#UNDERFLOW} once all encodable input is consumed or
+     *         {@link CoderResult#OVERFLOW} if {@code destination} is full
+     */
+    public CoderResult encode(ByteBuffer source, ByteBuffer destination, long sourcePosition, boolean endOfInput) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        long character = sourcePosition / 3 * 4;
+        while (source.remaining() >= 3) {
+            int groups = source.remaining() / 3;
+            int separator = 0;
+            if (lineLength > 0) {
+                int column = (int) (character % lineLength);
+                separator = column == 0 && character > 0 ? lineSeparator.length() : 0;
+                groups = Math.min(groups, (lineLength - column) / 4);
+            }
+            groups = Math.min(groups, (destination.remaining() - separator) / 4);
+            if (groups <= 0) {
+                return CoderResult.OVERFLOW;
+            }
+            if (separator > 0) {
+                putSeparator(destination);
+            }
+            encodeGroups(source, destination, groups);
+            character += groups * 4L;
+        }
+
+        int remaining = source.remaining();
+        if (remaining == 0 || !endOfInput) {
+            return CoderResult.UNDERFLOW;
+        }
+        int separator = startsLine(character) ? lineSeparator.length() : 0;
+        int characters = finalGroupLength(remaining);
+        if (destination.remaining() < separator + characters) {
+            return CoderResult.OVERFLOW;
+        }
+        if (separator > 0) {
+            putSeparator(destination);
+        }
+        int index = source.position();
+        int group = (source.get(index) & 0xFF) << 16 | (remaining == 2 ? (source.get(index + 1) & 0xFF) << 8 : 0);
+        for (int i = 0; i < characters; i++) {
+            destination.put(finalGroupCharacter(group, remaining, i));
+        }
+        source.position(index + remaining);
+        return CoderResult.UNDERFLOW;
+    }
+
+    private void encodeGroups(ByteBuffer source, ByteBuffer destination, int groups) {
+        var table = alphabet.encodeTable;
+        int index = source.position();
+        int written = destination.position();
+
+        if (source.hasArray() && destination.hasArray() && !destination.isReadOnly()) {
+            Base64Codec.encode(source.array(), source.arrayOffset() + index, groups * 3,
+                destination.array(), destination.arrayOffset() + written, table);
+        } else {
+            for (int i = 0; i < groups; i++) {
+                int group = (source.get(index + 3 * i) & 0xFF) << 16 | (source.get(index + 3 * i + 1) & 0xFF) << 8
+                    | (source.get(index + 3 * i + 2) & 0xFF);
+                destination.put(written + 4 * i, table[group >>> 18]);
+                destination.put(written + 4 * i + 1, table[(group >>> 12) & 0x3F]);
+                destination.put(written + 4 * i + 2, table[(group >>> 6) & 0x3F]);
+                destination.put(written + 4 * i + 3, table[group & 0x3F]);
+            }
+        }
+        source.position(index + groups * 3);
+        destination.position(written + groups * 4);
+    }
+
+    private boolean startsLine(long character) {
+        return lineLength > 0 && character > 0 && character % lineLength == 0;
+    }
+
+    private int finalGroupLength(int remaining) {
+        return padding ? 4 : remaining + 1;
+    }
+
+    /**
+     * @return character {@code i} of the final group encoding the {@code remaining} bytes held in the top of {@code group}
+     */
+    private byte finalGroupCharacter(int group, int remaining, int i) {
+        return i <= remaining
+            ? alphabet.encodeTable[(group >>> (18 - 6 * i)) & 0x3F]
+            : PAD;
+    }
+
+    private int putSeparator(byte[] destination, int written) {
+        for (int i = 0; i < lineSeparator.length(); i++) {
+            destination[written++] = (byte) lineSeparator.charAt(i);
+        }
+        return written;
+    }
+
+    private void putSeparator(ByteBuffer destination) {
+        for (int i = 0; i < lineSeparator.length(); i++) {
+            destination.put((byte) lineSeparator.charAt(i));
+        }
+    }
+}
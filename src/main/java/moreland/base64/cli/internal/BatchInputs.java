@@ -0,0 +1,101 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the input argument of a batch operation to the files it names
+ */
+public class BatchInputs {
+
+    private static final String MANIFEST_PREFIX = "@";
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private BatchInputs() {
+        // hidden constructor for "static" class
+    }
+
+    /**
+     * Resolves {@code specification}, one of
+     * <ul>
+     * <li>{@code @manifest} - a file listing one input path per line, blank lines and lines starting with # are ignored</li>
+     * <li>a directory - every regular file directly within it</li>
+     * <li>a glob such as {@code logs/**}{@code /*.bin} - every regular file matching it</li>
+     * <li>a single file</li>
+     * </ul>
+     * @param specification input argument
+     * @return resolved files in a stable order
+     * @throws IOException if a manifest or directory can't be read
+     */
+    public static List<Path> resolve(String specification) throws IOException {
+        GuardAgainst.argumentBeingNull(specification, "specification");
+
+        if (specification.startsWith(MANIFEST_PREFIX)) {
+            try (var lines = Files.lines(Path.of(specification.substring(MANIFEST_PREFIX.length())))) {
+                return lines
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(Path::of)
+                    .collect(Collectors.toList());
+            }
+        }
+
+        if (specification.chars().anyMatch(character -> GLOB_CHARACTERS.indexOf(character) >= 0)) {
+            return resolveGlob(specification);
+        }
+
+        var path = Path.of(specification);
+        if (Files.isDirectory(path)) {
+            try (var files = Files.list(path)) {
+                return sortedRegularFiles(files);
+            }
+        }
+        return List.of(path);
+    }
+
+    private static List<Path> resolveGlob(String glob) throws IOException {
+        // walk from the deepest directory named before the first wildcard
+        var base = Path.of("");
+        for (var part : Path.of(glob)) {
+            if (part.toString().chars().anyMatch(character -> GLOB_CHARACTERS.indexOf(character) >= 0)) {
+                break;
+            }
+            base = base.resolve(part);
+        }
+        if (Path.of(glob).isAbsolute()) {
+            base = Path.of(glob).getRoot().resolve(base);
+        }
+
+        var matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        if (!Files.isDirectory(base)) {
+            return List.of();
+        }
+        try (var files = Files.walk(base)) {
+            return sortedRegularFiles(files.filter(matcher::matches));
+        }
+    }
+
+    private static List<Path> sortedRegularFiles(Stream<Path> paths) {
+        return paths
+            .filter(Files::isRegularFile)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,114 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression applied to the input before encoding, and removed after decoding, so both run as a single
+ * streaming pass
+ */
+public enum Compression {
+    NONE,
+    /**
+     * RFC 1952 gzip, readable by {@code gzip -d} once decoded
+     */
+    GZIP,
+    /**
+     * RFC 1950 zlib wrapped deflate, as produced by {@link java.util.zip.DeflaterOutputStream}
+     */
+    DEFLATE;
+
+    private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @return command line flag selecting this compression, such as {@code --gzip}
+     */
+    public String option() {
+        return "--" + name().toLowerCase();
+    }
+
+    /**
+     * @param arguments command line arguments
+     * @return compression selected by a flag in {@code arguments}, {@link #NONE} if there is none
+     * @throws IllegalArgumentException if more than one compression is selected
+     */
+    public static Compression fromArguments(String... arguments) {
+        GuardAgainst.argumentBeingNull(arguments, "arguments");
+
+        var options = Arrays.asList(arguments);
+        var selected = Arrays.stream(values())
+            .filter(compression -> compression != NONE && options.contains(compression.option()))
+            .toList();
+        if (selected.size() > 1) {
+            throw new IllegalArgumentException("Only one of " + selected.stream().map(Compression::option).toList() + " may be given");
+        }
+        return selected.isEmpty() ? NONE : selected.get(0);
+    }
+
+    /**
+     * @param name {@code none}, {@code gzip} or {@code deflate}, ignoring case
+     * @return the named compression if known
+     */
+    public static Optional<Compression> fromString(String name) {
+        return Arrays.stream(values())
+            .filter(compression -> compression.name().equalsIgnoreCase(name))
+            .findFirst();
+    }
+
+    /**
+     * @param destination stream receiving the compressed bytes, not closed by the returned stream
+     * @return stream compressing independent blocks in parallel, {@link ParallelDeflaterOutputStream#finish()}
+     *         must be called once all input is written
+     * @throws UnsupportedOperationException for {@link #NONE}
+     */
+    public ParallelDeflaterOutputStream compress(OutputStream destination) {
+        return switch (this) {
+            case GZIP -> new ParallelDeflaterOutputStream(destination, true, Deflater.DEFAULT_COMPRESSION);
+            case DEFLATE -> new ParallelDeflaterOutputStream(destination, false, Deflater.DEFAULT_COMPRESSION);
+            default -> throw new UnsupportedOperationException(this + " does not compress");
+        };
+    }
+
+    /**
+     * @param source compressed bytes
+     * @return stream of the decompressed bytes
+     * @throws IOException if {@code source} doesn't start with a valid gzip header
+     * @throws UnsupportedOperationException for {@link #NONE}
+     */
+    public InputStream decompress(InputStream source) throws IOException {
+        return switch (this) {
+            case GZIP -> new GZIPInputStream(source, INFLATE_BUFFER_SIZE);
+            case DEFLATE -> new InflaterInputStream(source, new Inflater(), INFLATE_BUFFER_SIZE) {
+                // only the default inflater is released by close, this one needs ending explicitly
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inf.end();
+                    }
+                }
+            };
+            default -> throw new UnsupportedOperationException(this + " does not decompress");
+        };
+    }
+}
@@ -0,0 +1,164 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process wide registry of {@link OperationStatistics}; recording is off until {@link #enable()} so
+ * the only cost to an uninstrumented run is a volatile read per call
+ */
+public final class ConversionStatistics {
+
+    private static final String DOMAIN = "moreland.base64";
+
+    private static final Map<String, OperationStatistics> OPERATIONS = new ConcurrentSkipListMap<>();
+    private static volatile boolean enabled;
+    private static volatile boolean jmxRegistered;
+
+    private ConversionStatistics() {
+        // hidden constructor for "static" class
+    }
+
+    /**
+     * Starts recording for calls begun from now on
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param operation name of the operation, such as {@code encode.stream}
+     * @return sample to record a single call into, ignored unless statistics are enabled
+     */
+    public static OperationStatistics.Sample begin(String operation) {
+        GuardAgainst.argumentBeingNull(operation, "operation");
+        return enabled
+            ? new OperationStatistics.Sample(operation)
+            : OperationStatistics.Sample.DISABLED;
+    }
+
+    static OperationStatistics operation(String operation) {
+        return OPERATIONS.computeIfAbsent(operation, ConversionStatistics::create);
+    }
+
+    /**
+     * Enables recording and publishes the statistics on the platform MBean server under {@value #DOMAIN},
+     * operations first seen later are published as they appear
+     */
+    public static synchronized void registerMBeans() {
+        enable();
+        if (jmxRegistered) {
+            return;
+        }
+        jmxRegistered = true;
+        register(objectName("type=ConversionStatistics"), new Summary());
+        OPERATIONS.values().forEach(ConversionStatistics::register);
+    }
+
+    /**
+     * @return table of every recorded operation followed by scratch buffer usage, for printing on exit
+     */
+    public static String summary() {
+        var summary = new StringBuilder();
+        summary.append(String.format("%-20s %8s %6s %14s %14s %8s %9s %9s %9s %9s %9s %9s %9s%n",
+            "operation", "calls", "failed", "bytes in", "bytes out", "chunks", "MB/s",
+            "io ms", "codec ms", "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (var statistics : OPERATIONS.values()) {
+            double seconds = statistics.getMeanLatencyMicros() * statistics.getCalls() / 1_000_000;
+            summary.append(String.format("%-20s %8d %6d %14d %14d %8d %9.1f %9d %9d %9d %9d %9d %9d%n",
+                statistics.name(), statistics.getCalls(), statistics.getFailures(),
+                statistics.getBytesIn(), statistics.getBytesOut(), statistics.getChunks(),
+                seconds > 0 ? statistics.getBytesIn() / seconds / (1024 * 1024) : 0.0,
+                statistics.getIoMillis(), statistics.getCodecMillis(),
+                statistics.getLatencyP50Micros(), statistics.getLatencyP99Micros(),
+                statistics.getLatencyP999Micros(), statistics.getMaxLatencyMicros()));
+        }
+        var buffers = new Summary();
+        summary.append(String.format("scratch buffers: %d acquired, %d allocated, %.1f%% hit rate%n",
+            buffers.getScratchBufferAcquisitions(), buffers.getScratchBufferAllocations(),
+            buffers.getScratchBufferHitRate() * 100));
+        return summary.toString();
+    }
+
+    private static OperationStatistics create(String operation) {
+        var statistics = new OperationStatistics(operation);
+        if (jmxRegistered) {
+            register(statistics);
+        }
+        return statistics;
+    }
+
+    private static void register(OperationStatistics statistics) {
+        register(objectName("type=Operation,name=" + ObjectName.quote(statistics.name())), statistics);
+    }
+
+    private static void register(ObjectName name, Object mbean) {
+        if (name == null) {
+            return;
+        }
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            LoggerFactory.getLogger(ConversionStatistics.class).warn(e.getMessage());
+        }
+    }
+
+    private static ObjectName objectName(String properties) {
+        try {
+            return new ObjectName(DOMAIN + ":" + properties);
+        } catch (JMException e) {
+            LoggerFactory.getLogger(ConversionStatistics.class).warn(e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class Summary implements ConversionStatisticsMXBean {
+
+        @Override
+        public String[] getOperations() {
+            return OPERATIONS.keySet().toArray(String[]::new);
+        }
+
+        @Override
+        public long getScratchBufferAcquisitions() {
+            return ScratchBuffers.acquisitions();
+        }
+
+        @Override
+        public long getScratchBufferAllocations() {
+            return ScratchBuffers.allocations();
+        }
+
+        @Override
+        public double getScratchBufferHitRate() {
+            long acquisitions = getScratchBufferAcquisitions();
+            return acquisitions == 0 ? 0 : 1 - (double) getScratchBufferAllocations() / acquisitions;
+        }
+    }
+}
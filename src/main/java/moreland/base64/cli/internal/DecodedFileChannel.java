@@ -0,0 +1,202 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read only view of the decoded content of a Base64 file. Each read decodes only the encoded characters covering
+ * the bytes read, found through the file's {@link EncodedLayout}, so any range of a large file can be read without
+ * decoding what comes before it. Instances are not safe for use by multiple threads
+ */
+public final class DecodedFileChannel implements SeekableByteChannel {
+
+    private static final int MAX_READ_LENGTH = 3 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final StreamingDecoder decoder;
+    private EncodedLayout layout;
+    private long size;
+    private long position;
+
+    private DecodedFileChannel(FileChannel channel, StreamingDecoder decoder) throws IOException {
+        this.channel = channel;
+        this.decoder = decoder;
+        useLayout(EncodedLayout.of(channel));
+    }
+
+    /**
+     * @param path Base64 encoded file
+     * @param decoder decoder used for every read, whitespace must be ignored if the file is wrapped
+     * @return channel positioned at the start of the decoded content
+     */
+    public static DecodedFileChannel open(Path path, StreamingDecoder decoder) throws IOException {
+        GuardAgainst.argumentBeingNull(path, "path");
+        GuardAgainst.argumentBeingNull(decoder, "decoder");
+
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new DecodedFileChannel(channel, decoder);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * At most {@value #MAX_READ_LENGTH} bytes are decoded per call
+     */
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        GuardAgainst.argumentBeingNull(destination, "destination");
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        int length = (int) Math.min(Math.min(destination.remaining(), MAX_READ_LENGTH), size - position);
+        if (length == 0) {
+            return 0;
+        }
+
+        long firstCharacter = position / 3 * 4;
+        long endCharacter = Math.min(layout.characters(), (position + length + 2) / 3 * 4);
+        long start = layout.offsetOf(firstCharacter);
+        var encoded = ByteBuffer.allocate((int) (layout.offsetOf(endCharacter - 1) + 1 - start));
+        EncodedLayout.readFully(channel, encoded, start);
+
+        if (countCharacters(encoded) != endCharacter - firstCharacter) {
+            if (layout.isIndexed()) {
+                throw new IOException("encoded file changed while being read");
+            }
+            // wrapped after all, index the file and try again
+            useLayout(EncodedLayout.indexed(channel));
+            return read(destination);
+        }
+
+        var decoded = new byte[StreamingDecoder.maxDecodedLength(encoded.limit())];
+        int count;
+        try {
+            decoder.reset(start);
+            count = decoder.decode(encoded.array(), 0, encoded.limit(), decoded, 0);
+            count += decoder.finish(decoded, count);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        int skip = (int) (position % 3);
+        int copied = Math.min(length, count - skip);
+        if (copied <= 0) {
+            throw new IOException("encoded file ends before decoded offset " + position);
+        }
+        destination.put(decoded, skip, copied);
+        position += copied;
+        return copied;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The decoded length is worked out from the number of encoded characters and any padding, without decoding
+     */
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public DecodedFileChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("newPosition");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public int write(ByteBuffer source) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public DecodedFileChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void useLayout(EncodedLayout layout) throws IOException {
+        this.layout = layout;
+
+        long characters = layout.characters();
+        long groups = characters / 4;
+        int remainder = (int) (characters % 4);
+        if (remainder != 0) {
+            // unpadded final group, a lone character is rejected when read
+            size = groups * 3 + Math.max(remainder - 1, 0);
+            return;
+        }
+        int padding = 0;
+        for (long character = characters - 1; character >= Math.max(characters - 2, 0); character--) {
+            padding += isPad(layout.offsetOf(character)) ? 1 : 0;
+        }
+        size = groups * 3 - padding;
+    }
+
+    private boolean isPad(long offset) throws IOException {
+        var character = ByteBuffer.allocate(1);
+        EncodedLayout.readFully(channel, character, offset);
+        return character.get(0) == '=';
+    }
+
+    private static long countCharacters(ByteBuffer encoded) {
+        if (Base64Codec.isWhitespace(encoded.get(0)) || Base64Codec.isWhitespace(encoded.get(encoded.limit() - 1))) {
+            return -1;
+        }
+        long count = 0;
+        for (int i = 0; i < encoded.limit(); i++) {
+            count += Base64Codec.isWhitespace(encoded.get(i)) ? 0 : 1;
+        }
+        return count;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!channel.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes a stream of byte buffers through a {@link StreamingDecoder}, which carries partial
+ * 4 character groups from one item to the next
+ */
+public final class DecodingFlowProcessor extends Base64FlowProcessor {
+
+    private final StreamingDecoder decoder;
+
+    /**
+     * @param decoder decoder used for the whole stream
+     * @param chunkSize maximum size of each published buffer, at least {@link #MINIMUM_CHUNK_SIZE}
+     */
+    public DecodingFlowProcessor(StreamingDecoder decoder, int chunkSize) {
+        super(chunkSize);
+        GuardAgainst.argumentBeingNull(decoder, "decoder");
+        this.decoder = decoder;
+    }
+
+    @Override
+    protected void convert(ByteBuffer source) {
+        while (source.hasRemaining()) {
+            var chunk = chunk();
+            // largest input whose output, including up to 3 carried characters, is sure to fit
+            int length = Math.min(source.remaining(), chunk.remaining() / 3 * 4 - 3);
+            if (length <= 0) {
+                publishChunk();
+                continue;
+            }
+            decoder.decode(source.slice(source.position(), length), chunk);
+            source.position(source.position() + length);
+        }
+    }
+
+    @Override
+    protected void finish() {
+        if (chunk().remaining() < 2) {
+            publishChunk();
+        }
+        decoder.finish(chunk());
+    }
+}
@@ -0,0 +1,121 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * Decodes the characters read from another stream, for use as the first stage of a pipeline such as
+ * decompression; invalid input is reported as an {@link IOException} carrying the decoder's message
+ */
+public final class DecodingInputStream extends InputStream {
+
+    private final InputStream source;
+    private final StreamingDecoder decoder;
+    private final byte[] encoded;
+    private final byte[] decoded;
+    private int decodedPosition;
+    private int decodedLength;
+    private long consumed;
+    private boolean ended;
+
+    /**
+     * @param source stream of base64 characters, not closed by this stream
+     * @param decoder decoder to use, reset before first use
+     * @param encoded receives characters read from {@code source}
+     * @param decoded receives decoded bytes, needs {@link StreamingDecoder#maxDecodedLength(int)} bytes
+     *        for the length of {@code encoded}
+     */
+    public DecodingInputStream(InputStream source, StreamingDecoder decoder, byte[] encoded, byte[] decoded) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(decoder, "decoder");
+        GuardAgainst.argumentBeingNull(encoded, "encoded");
+        GuardAgainst.argumentBeingNull(decoded, "decoded");
+        if (decoded.length < StreamingDecoder.maxDecodedLength(encoded.length)) {
+            throw new IllegalArgumentException("decoded buffer too small for the encoded buffer");
+        }
+
+        this.source = source;
+        this.decoder = decoder;
+        this.encoded = encoded;
+        this.decoded = decoded;
+        decoder.reset();
+    }
+
+    /**
+     * @return number of characters read from the source so far
+     */
+    public long consumed() {
+        return consumed;
+    }
+
+    @Override
+    public int read() throws IOException {
+        var single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        GuardAgainst.argumentBeingNull(buffer, "buffer");
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        if (length == 0) {
+            return 0;
+        }
+
+        while (decodedPosition == decodedLength) {
+            if (ended) {
+                return -1;
+            }
+            fill();
+        }
+        int count = Math.min(length, decodedLength - decodedPosition);
+        System.arraycopy(decoded, decodedPosition, buffer, offset, count);
+        decodedPosition += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return decodedLength - decodedPosition;
+    }
+
+    /**
+     * Leaves the source open, it belongs to the caller
+     */
+    @Override
+    public void close() {
+        ended = true;
+        decodedPosition = decodedLength;
+    }
+
+    private void fill() throws IOException {
+        decodedPosition = 0;
+        try {
+            int read = source.read(encoded);
+            if (read == -1) {
+                ended = true;
+                decodedLength = decoder.finish(decoded, 0);
+                return;
+            }
+            consumed += read;
+            decodedLength = decoder.decode(encoded, 0, read, decoded, 0);
+        } catch (IllegalArgumentException e) {
+            decodedLength = 0;
+            ended = true;
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
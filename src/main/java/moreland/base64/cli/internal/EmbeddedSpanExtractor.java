@@ -0,0 +1,168 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Extracts the Base64 payloads embedded in structured text in a single pass over a stream, writing each decoded
+ * to its own file as it is found; nothing is parsed into a tree and at most one block of input and of each
+ * payload is held in memory
+ */
+public final class EmbeddedSpanExtractor {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * How the input is interpreted
+     */
+    public enum Format {
+        /**
+         * chosen from the first significant character: {@code {} or {@code [} for JSON, {@code <} for XML,
+         * otherwise text
+         */
+        AUTO,
+        /**
+         * PEM blocks and {@code data:} URIs anywhere in the input
+         */
+        TEXT,
+        /**
+         * string values at the configured path, PEM blocks and {@code data:} URIs within other string values
+         */
+        JSON,
+        /**
+         * text of the configured elements, PEM blocks and {@code data:} URIs within other text and attribute values
+         */
+        XML;
+
+        /**
+         * @param name {@code auto}, {@code text}, {@code json} or {@code xml}, ignoring case
+         * @return the named format
+         * @throws IllegalArgumentException if {@code name} is not a known format
+         */
+        public static Format named(String name) {
+            GuardAgainst.argumentBeingNull(name, "name");
+
+            return switch (name.toLowerCase()) {
+                case "auto" -> AUTO;
+                case "text" -> TEXT;
+                case "json" -> JSON;
+                case "xml" -> XML;
+                default -> throw new IllegalArgumentException("Unknown extraction format " + name);
+            };
+        }
+    }
+
+    private final Format format;
+    private final String jsonPath;
+    private final String xmlElement;
+
+    /**
+     * @param format how the input is interpreted
+     * @param jsonPath path of the JSON string values to decode such as {@code $.attachments[*].content},
+     *        empty for none
+     * @param xmlElement local name of the XML elements whose text is decoded, empty for none
+     * @throws IllegalArgumentException if {@code jsonPath} isn't of a supported form
+     */
+    public EmbeddedSpanExtractor(Format format, String jsonPath, String xmlElement) {
+        GuardAgainst.argumentBeingNull(format, "format");
+        GuardAgainst.argumentBeingNull(jsonPath, "jsonPath");
+        GuardAgainst.argumentBeingNull(xmlElement, "xmlElement");
+
+        this.format = format;
+        this.jsonPath = jsonPath.isBlank() ? null : jsonPath.trim();
+        this.xmlElement = xmlElement.isBlank() ? null : xmlElement.trim();
+        if (this.jsonPath != null) {
+            // fail on a bad path before any input is read
+            new JsonSpanScanner(this.jsonPath, null);
+        }
+    }
+
+    /**
+     * Extracts every payload in {@code source}
+     * @param source structured text, read to the end but not closed
+     * @param outputDirectory directory each decoded payload is written to
+     * @param prefix start of each output file name, which continues with the payload's number and an extension
+     *        taken from its media type, {@code der} for PEM blocks and {@code bin} otherwise
+     * @return outcome of each payload in the order found; a payload that fails to decode doesn't stop the others
+     * @throws IOException if reading {@code source} or writing an output fails
+     */
+    public List<ExtractedSpan> extract(InputStream source, Path outputDirectory, String prefix) throws IOException {
+        return extract(source, outputDirectory, prefix, UnaryOperator.identity());
+    }
+
+    /**
+     * Extracts every payload in {@code source} as {@link #extract(InputStream, Path, String)} does
+     * @param outputs applied to each payload's file output stream as it is opened, such as to time its writes
+     */
+    public List<ExtractedSpan> extract(InputStream source, Path outputDirectory, String prefix,
+            UnaryOperator<OutputStream> outputs) throws IOException {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(outputDirectory, "outputDirectory");
+        GuardAgainst.argumentBeingNull(prefix, "prefix");
+        GuardAgainst.argumentBeingNull(outputs, "outputs");
+
+        var output = new SpanOutput(outputDirectory, prefix, outputs);
+        var buffer = new byte[READ_BUFFER_SIZE];
+        SpanScanner scanner = format == Format.AUTO ? null : scanner(format, output);
+        long offset = 0;
+
+        try {
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                int start = 0;
+                while (scanner == null && start < read) {
+                    scanner = sniff(buffer[start] & 0xFF, output);
+                    start += scanner == null ? 1 : 0;
+                }
+                if (scanner != null) {
+                    scanner.accept(buffer, start, read - start, offset + start);
+                }
+                offset += read;
+            }
+            if (scanner != null) {
+                scanner.finish();
+            }
+        } finally {
+            output.close();
+        }
+        return output.spans();
+    }
+
+    /**
+     * @return the scanner for the format the input starts with, null while only whitespace or a byte order mark has been read
+     */
+    private SpanScanner sniff(int character, SpanOutput output) {
+        if (Character.isWhitespace(character) || character == 0xEF || character == 0xBB || character == 0xBF) {
+            return null;
+        }
+        return switch (character) {
+            case '{', '[' -> scanner(Format.JSON, output);
+            case '<' -> scanner(Format.XML, output);
+            default -> scanner(Format.TEXT, output);
+        };
+    }
+
+    private SpanScanner scanner(Format selected, SpanOutput output) {
+        return switch (selected) {
+            case JSON -> new JsonSpanScanner(jsonPath, output);
+            case XML -> new XmlSpanScanner(xmlElement, output);
+            default -> new TextSpanDetector(output);
+        };
+    }
+}
@@ -0,0 +1,216 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+/**
+ * Directory of previously encoded outputs keyed by a digest of their input, either its real path, size
+ * and modification time or, when content hashing is enabled, its size and contents so identical files
+ * share an entry wherever they are. Entries are only ever replaced by atomic moves, which makes the
+ * directory safe to share between processes; the modification time of an entry doubles as its last
+ * use and the least recently used entries are removed once the total size exceeds the cap
+ */
+public class EncodedFileCache {
+
+    private static final String ENTRY_SUFFIX = ".b64";
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxSize;
+    private final boolean contentHash;
+    private final boolean hardLink;
+
+    /**
+     * @param directory directory holding cached outputs, created on first store
+     * @param maxSize total size of cached outputs in bytes above which least recently used entries are evicted
+     * @param contentHash if true keys are derived from file contents rather than path and modification time
+     * @param hardLink if true hits are hard linked to their destination rather than copied, the destination
+     *        then shares storage with the cache entry and must be replaced rather than modified in place
+     */
+    public EncodedFileCache(Path directory, long maxSize, boolean contentHash, boolean hardLink) {
+        GuardAgainst.argumentBeingNull(directory, "directory");
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.contentHash = contentHash;
+        this.hardLink = hardLink;
+    }
+
+    /**
+     * @param source file to be encoded
+     * @param variant form of the encoded output
+     * @return key identifying the encoded output of {@code source} in its current state
+     * @throws IOException if {@code source} can't be read
+     */
+    public String key(Path source, Base64Variant variant) throws IOException {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(variant, "variant");
+
+        var digest = sha256();
+        digest.update(variant.toString().getBytes(StandardCharsets.UTF_8));
+        var attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, attributes.size()));
+
+        if (contentHash) {
+            try (var channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                var buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+                while (channel.read(buffer.clear()) != -1) {
+                    digest.update(buffer.flip());
+                }
+            }
+        } else {
+            digest.update(source.toRealPath().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, attributes.lastModifiedTime().toMillis()));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Copies, or links, the entry for {@code key} to {@code destination} replacing any existing file
+     * @return false if there is no entry for {@code key}
+     * @throws IOException if the entry exists but couldn't be copied
+     */
+    public boolean retrieve(String key, Path destination) throws IOException {
+        GuardAgainst.argumentBeingNull(key, "key");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        var entry = entryFor(key);
+        try {
+            Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+            if (!hardLink || !link(entry, destination)) {
+                Files.copy(entry, destination, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            // never cached or evicted by another process since
+            return false;
+        }
+    }
+
+    /**
+     * Adds {@code encoded} as the entry for {@code key}, then evicts least recently used entries
+     * until the cache is back within its size cap
+     * @throws IOException if the entry couldn't be written
+     */
+    public void store(String key, Path encoded) throws IOException {
+        GuardAgainst.argumentBeingNull(key, "key");
+        GuardAgainst.argumentBeingNull(encoded, "encoded");
+
+        if (Files.size(encoded) > maxSize) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        var temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            Files.copy(encoded, temporary, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporary, entryFor(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        evict();
+    }
+
+    private void evict() throws IOException {
+        record Entry(Path path, long size, FileTime lastUsed) {
+        }
+
+        var entries = new ArrayList<Entry>();
+        long total = 0;
+        try (var paths = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+            for (var path : paths) {
+                try {
+                    var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    entries.add(new Entry(path, attributes.size(), attributes.lastModifiedTime()));
+                    total += attributes.size();
+                } catch (NoSuchFileException e) {
+                    // removed by another process while listing
+                }
+            }
+        }
+        if (total <= maxSize) {
+            return;
+        }
+
+        entries.sort(Comparator.comparing(Entry::lastUsed));
+        for (var entry : entries) {
+            if (total <= maxSize) {
+                break;
+            }
+            Files.deleteIfExists(entry.path());
+            total -= entry.size();
+        }
+    }
+
+    /**
+     * Removes {@code path} if its storage is shared with another hard link, such as an entry linked to it by
+     * {@link #retrieve(String, Path)}, so that writing to the path creates a new file rather than rewriting the entry;
+     * does nothing on file systems that don't report link counts
+     * @param path file about to be written
+     * @throws IOException if the link count can't be read or the file can't be removed
+     */
+    public static void unlinkShared(Path path) throws IOException {
+        GuardAgainst.argumentBeingNull(path, "path");
+
+        try {
+            if (Files.isRegularFile(path) && ((Number) Files.getAttribute(path, "unix:nlink")).intValue() > 1) {
+                Files.delete(path);
+            }
+        } catch (NoSuchFileException e) {
+            // removed since it was checked, there is nothing left to share
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            // no unix attribute view, hard links are only created where it is available
+        }
+    }
+
+    private boolean link(Path entry, Path destination) throws IOException {
+        Files.deleteIfExists(destination);
+        try {
+            Files.createLink(destination, entry);
+            return true;
+        } catch (NoSuchFileException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException e) {
+            // most likely a different file system or one without hard links, fall back to copying
+            return false;
+        }
+    }
+
+    private Path entryFor(String key) {
+        return directory.resolve(key + ENTRY_SUFFIX);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Maps the index of an encoded character to its offset within a Base64 file that may be wrapped into lines.
+ * Unwrapped input is mapped by arithmetic; wrapped input by a sparse index, built by reading the file once
+ * without decoding it, that records the offset of every {@link #INDEX_INTERVAL}th character
+ */
+public final class EncodedLayout {
+
+    private static final int PROBE_LENGTH = 1024 * 1024;
+    private static final int INDEX_INTERVAL = 64 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    private static final int INDEX_BUFFER_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long characters;
+    private final long[] index;
+
+    private EncodedLayout(FileChannel channel, long characters, long[] index) {
+        this.channel = channel;
+        this.characters = characters;
+        this.index = index;
+    }
+
+    /**
+     * Probes the start of {@code channel} for line breaks, indexing it if any are found. Input with none in its
+     * first {@value #PROBE_LENGTH} bytes is assumed to be unwrapped, callers should confirm that characters are
+     * found where expected and use {@link #indexed(FileChannel)} if not
+     * @param channel encoded input
+     * @return layout of {@code channel}
+     */
+    public static EncodedLayout of(FileChannel channel) throws IOException {
+        GuardAgainst.argumentBeingNull(channel, "channel");
+
+        long end = endOfData(channel);
+        var probe = ByteBuffer.allocate((int) Math.min(end, PROBE_LENGTH));
+        readFully(channel, probe, 0);
+        for (int i = 0; i < probe.limit(); i++) {
+            if (Base64Codec.isWhitespace(probe.get(i))) {
+                return indexed(channel);
+            }
+        }
+        return new EncodedLayout(channel, end, null);
+    }
+
+    /**
+     * Builds the index of {@code channel} by reading all of it, without decoding
+     * @param channel encoded input
+     * @return exact layout of {@code channel}
+     */
+    public static EncodedLayout indexed(FileChannel channel) throws IOException {
+        GuardAgainst.argumentBeingNull(channel, "channel");
+
+        var index = new long[16];
+        int entries = 0;
+        long characters = 0;
+        long nextEntry = 0;
+        var buffer = ByteBuffer.allocate(INDEX_BUFFER_SIZE);
+        var bytes = buffer.array();
+        long size = channel.size();
+
+        for (long position = 0; position < size; position += buffer.limit()) {
+            readFully(channel, buffer.clear().limit((int) Math.min(INDEX_BUFFER_SIZE, size - position)), position);
+            for (int i = 0, limit = buffer.limit(); i < limit; i++) {
+                if (Base64Codec.isWhitespace(bytes[i])) {
+                    continue;
+                }
+                if (characters++ == nextEntry) {
+                    if (entries == index.length) {
+                        index = Arrays.copyOf(index, entries * 2);
+                    }
+                    index[entries++] = position + i;
+                    nextEntry += INDEX_INTERVAL;
+                }
+            }
+        }
+        return new EncodedLayout(channel, characters, Arrays.copyOf(index, entries));
+    }
+
+    /**
+     * @return number of encoded characters, excluding line separators and other whitespace
+     */
+    public long characters() {
+        return characters;
+    }
+
+    /**
+     * @return true if the layout was built by reading the whole file, otherwise input is assumed to be unwrapped
+     */
+    public boolean isIndexed() {
+        return index != null;
+    }
+
+    /**
+     * @param character index of an encoded character, less than {@link #characters()}
+     * @return offset of {@code character} within the file
+     */
+    public long offsetOf(long character) throws IOException {
+        if (character < 0 || character >= characters) {
+            throw new IndexOutOfBoundsException("character " + character + " of " + characters);
+        }
+        if (index == null) {
+            return character;
+        }
+
+        // from the nearest indexed character count forward over any whitespace in between
+        long position = index[(int) (character / INDEX_INTERVAL)];
+        long remaining = character % INDEX_INTERVAL;
+        var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long size = channel.size();
+        while (position < size) {
+            readFully(channel, buffer.clear().limit((int) Math.min(SCAN_BUFFER_SIZE, size - position)), position);
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (!Base64Codec.isWhitespace(buffer.get(i)) && remaining-- == 0) {
+                    return position + i;
+                }
+            }
+            position += buffer.limit();
+        }
+        throw new IOException("encoded file is shorter than its index");
+    }
+
+    /**
+     * @return length of {@code channel} less any trailing whitespace
+     */
+    private static long endOfData(FileChannel channel) throws IOException {
+        var buffer = ByteBuffer.allocate(256);
+        long end = channel.size();
+        while (end > 0) {
+            int length = (int) Math.min(buffer.capacity(), end);
+            readFully(channel, buffer.clear().limit(length), end - length);
+            for (int i = length - 1; i >= 0; i--, end--) {
+                if (!Base64Codec.isWhitespace(buffer.get(i))) {
+                    return end;
+                }
+            }
+        }
+        return 0;
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of file at " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+    }
+}
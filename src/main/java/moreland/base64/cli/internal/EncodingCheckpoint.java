@@ -0,0 +1,133 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.zip.CRC32C;
+
+/**
+ * Progress of an append only encode, stored in a properties file next to the output. Everything before
+ * {@code consumed}, always a multiple of 3, encodes to the first {@link Base64Variant#encodedLength(long)}
+ * characters of the output and never changes; the {@code tail} bytes after it were encoded into the final
+ * group and are encoded again, along with anything appended, on the next run
+ * @param consumed input bytes encoded into complete unpadded groups
+ * @param tail the 0 to 2 input bytes following {@code consumed}
+ * @param outputLength length of the output including the final group
+ * @param inputChecksum CRC32C of the first {@link #CHECKSUM_LENGTH} bytes of input, at most, to detect replaced files
+ * @param variant the output was encoded to, as {@link Base64Variant#toString()}, output in any other is encoded again
+ */
+public record EncodingCheckpoint(long consumed, byte[] tail, long outputLength, long inputChecksum, String variant) {
+
+    public static final String SUFFIX = ".checkpoint";
+    private static final int CHECKSUM_LENGTH = 64 * 1024;
+    private static final String CONSUMED = "consumed";
+    private static final String TAIL = "tail";
+    private static final String OUTPUT_LENGTH = "output-length";
+    private static final String INPUT_CHECKSUM = "input-checksum";
+    private static final String VARIANT = "variant";
+
+    /**
+     * @param input fully encoded input
+     * @param outputLength length of its encoded output
+     * @param variant the output was encoded to
+     * @return checkpoint following an encode of all of {@code input}
+     */
+    public static EncodingCheckpoint after(FileChannel input, long outputLength, Base64Variant variant) throws IOException {
+        long size = input.size();
+        long consumed = size - size % 3;
+        var tail = ByteBuffer.allocate((int) (size - consumed));
+        readFully(input, tail, consumed);
+        return new EncodingCheckpoint(consumed, tail.array(), outputLength, checksum(input, size), variant.toString());
+    }
+
+    /**
+     * @return the checkpoint stored at {@code path}, empty if there is none or it can't be parsed
+     */
+    public static Optional<EncodingCheckpoint> read(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (var reader = Files.newBufferedReader(path)) {
+            var properties = new Properties();
+            properties.load(reader);
+            return Optional.of(new EncodingCheckpoint(
+                Long.parseLong(properties.getProperty(CONSUMED)),
+                HexFormat.of().parseHex(properties.getProperty(TAIL)),
+                Long.parseLong(properties.getProperty(OUTPUT_LENGTH)),
+                Long.parseLong(properties.getProperty(INPUT_CHECKSUM)),
+                properties.getProperty(VARIANT, "")));
+        } catch (IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the checkpoint at {@code path} atomically
+     */
+    public void write(Path path) throws IOException {
+        var properties = new Properties();
+        properties.setProperty(CONSUMED, Long.toString(consumed));
+        properties.setProperty(TAIL, HexFormat.of().formatHex(tail));
+        properties.setProperty(OUTPUT_LENGTH, Long.toString(outputLength));
+        properties.setProperty(INPUT_CHECKSUM, Long.toString(inputChecksum));
+        properties.setProperty(VARIANT, variant);
+
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var writer = Files.newBufferedWriter(temporary)) {
+            properties.store(writer, "base64 incremental encode checkpoint");
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return true if {@code input} still starts with the bytes this checkpoint was taken from, only
+     *         appended to since, and {@code output} is as this checkpoint left it in {@code variant}
+     */
+    public boolean isValidFor(FileChannel input, FileChannel output, Base64Variant variant) throws IOException {
+        if (!variant.toString().equals(this.variant) || consumed % 3 != 0 || tail.length > 2
+                || output.size() != outputLength || input.size() < consumed + tail.length) {
+            return false;
+        }
+        var currentTail = ByteBuffer.allocate(tail.length);
+        readFully(input, currentTail, consumed);
+        return Arrays.equals(currentTail.array(), tail) && checksum(input, consumed + tail.length) == inputChecksum;
+    }
+
+    /**
+     * @param length input length the checkpoint covers, only its first {@link #CHECKSUM_LENGTH} bytes are read
+     */
+    private static long checksum(FileChannel input, long length) throws IOException {
+        var prefix = ByteBuffer.allocate((int) Math.min(CHECKSUM_LENGTH, length));
+        readFully(input, prefix, 0);
+        var crc = new CRC32C();
+        crc.update(prefix.flip());
+        return crc.getValue();
+    }
+
+    private static void readFully(FileChannel input, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (input.read(buffer, position + buffer.position()) == -1) {
+                throw new IOException("unexpected end of input");
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CoderResult;
+
+/**
+ * Encodes a stream of byte buffers, carrying the last 1 or 2 bytes of an item over to the next
+ * so that groups split between items encode as if the input were contiguous, line breaks included
+ */
+public final class EncodingFlowProcessor extends Base64FlowProcessor {
+
+    private final ByteBuffer carry = ByteBuffer.allocate(3);
+    private final Base64Variant variant;
+    private long consumed;
+
+    /**
+     * @param variant form of the encoded output
+     * @param chunkSize maximum size of each published buffer, at least {@link #MINIMUM_CHUNK_SIZE} plus the
+     *        length of the variant's line separator
+     */
+    public EncodingFlowProcessor(Base64Variant variant, int chunkSize) {
+        super(chunkSize);
+        GuardAgainst.argumentBeingNull(variant, "variant");
+        if (variant.lineLength() > 0 && chunkSize < MINIMUM_CHUNK_SIZE + variant.lineSeparator().length()) {
+            throw new IllegalArgumentException("chunkSize must leave room for a line separator and a group");
+        }
+        this.variant = variant;
+    }
+
+    @Override
+    protected void convert(ByteBuffer source) {
+        if (carry.position() > 0) {
+            while (carry.hasRemaining() && source.hasRemaining()) {
+                carry.put(source.get());
+            }
+            if (carry.hasRemaining()) {
+                return;
+            }
+            encode(carry.flip(), false);
+            carry.clear();
+        }
+        encode(source, false);
+        carry.put(source);
+    }
+
+    @Override
+    protected void finish() {
+        encode(carry.flip(), true);
+        carry.clear();
+    }
+
+    private void encode(ByteBuffer source, boolean endOfInput) {
+        CoderResult result;
+        do {
+            int start = source.position();
+            result = variant.encode(source, chunk(), consumed, endOfInput);
+            consumed += source.position() - start;
+            if (result.isOverflow()) {
+                publishChunk();
+            }
+        } while (result.isOverflow());
+    }
+}
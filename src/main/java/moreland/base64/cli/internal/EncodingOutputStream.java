@@ -0,0 +1,125 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * Encodes everything written to it onto another stream, for use as the last stage of a pipeline such as
+ * compression; input is buffered until a whole block, a multiple of 3 bytes, can be encoded
+ */
+public final class EncodingOutputStream extends OutputStream {
+
+    private final OutputStream destination;
+    private final Base64Engine engine;
+    private final Base64Variant variant;
+    private final byte[] buffer;
+    private final byte[] encoded;
+    private final int blockSize;
+    private int pending;
+    private long position;
+    private long written;
+    private boolean finished;
+
+    /**
+     * @param destination stream receiving the encoded characters, not closed by this stream
+     * @param engine engine encoding each line
+     * @param variant form of the encoded output
+     * @param buffer holds input until a block is complete
+     * @param encoded receives each encoded block, its length bounds the block size
+     */
+    public EncodingOutputStream(OutputStream destination, Base64Engine engine, Base64Variant variant,
+            byte[] buffer, byte[] encoded) {
+        GuardAgainst.argumentBeingNull(destination, "destination");
+        GuardAgainst.argumentBeingNull(engine, "engine");
+        GuardAgainst.argumentBeingNull(variant, "variant");
+        GuardAgainst.argumentBeingNull(buffer, "buffer");
+        GuardAgainst.argumentBeingNull(encoded, "encoded");
+
+        this.destination = destination;
+        this.engine = engine;
+        this.variant = variant;
+        this.buffer = buffer;
+        this.encoded = encoded;
+        this.blockSize = Math.min(buffer.length, variant.maxSourceLength(encoded.length));
+        if (blockSize < 3) {
+            throw new IllegalArgumentException("buffers too small to encode a group");
+        }
+    }
+
+    /**
+     * @return number of characters written to the destination so far
+     */
+    public long written() {
+        return written;
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        write(new byte[] { (byte) value }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] source, int offset, int count) throws IOException {
+        GuardAgainst.argumentBeingNull(source, "source");
+        Objects.checkFromIndexSize(offset, count, source.length);
+        if (finished) {
+            throw new IOException("write beyond end of encoded stream");
+        }
+
+        while (count > 0) {
+            int copied = Math.min(count, blockSize - pending);
+            System.arraycopy(source, offset, buffer, pending, copied);
+            pending += copied;
+            offset += copied;
+            count -= copied;
+            if (pending == blockSize) {
+                writeEncoded(false);
+            }
+        }
+    }
+
+    /**
+     * Encodes any buffered input, with padding if the variant uses it, and flushes the destination;
+     * further writes fail
+     * @throws IOException if writing to the destination fails
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (pending > 0) {
+            writeEncoded(true);
+        }
+        destination.flush();
+    }
+
+    /**
+     * Finishes the encoded stream, the destination is left open
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private void writeEncoded(boolean endOfInput) throws IOException {
+        int count = variant.encode(engine, buffer, 0, pending, encoded, 0, position, endOfInput);
+        destination.write(encoded, 0, count);
+        position += pending;
+        written += count;
+        pending = 0;
+    }
+}
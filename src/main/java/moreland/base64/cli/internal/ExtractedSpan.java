@@ -0,0 +1,28 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of extracting a single embedded Base64 payload
+ * @param kind what the payload was found in, such as {@code pem CERTIFICATE}, {@code data:image/png},
+ *        {@code json $.files[2].content} or {@code xml <attachment>}
+ * @param offset offset within the input of the first character of the payload
+ * @param output file the decoded payload was written to, removed again if decoding failed
+ * @param decodedLength number of bytes written to {@code output}
+ * @param success true if the payload decoded successfully
+ * @param error description of the problem, empty on success
+ */
+public record ExtractedSpan(String kind, long offset, Path output, long decodedLength, boolean success, String error) {
+}
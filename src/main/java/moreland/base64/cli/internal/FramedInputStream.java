@@ -0,0 +1,106 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the payload of frames written by {@link FramedOutputStream}, each frame is a 4 byte big endian
+ * length followed by that many bytes; a zero length frame ends the stream and a negative one carries an
+ * error message which is thrown as an {@link IOException}
+ */
+public class FramedInputStream extends InputStream {
+
+    private static final int MAX_MESSAGE_LENGTH = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    private int remaining;
+    private boolean ended;
+
+    /**
+     * @param channel blocking channel frames are read from, read directly rather than through
+     *        {@link java.nio.channels.Channels#newInputStream} so another thread may write to it concurrently
+     */
+    public FramedInputStream(ReadableByteChannel channel) {
+        GuardAgainst.argumentBeingNull(channel, "channel");
+        this.channel = channel;
+    }
+
+    @Override
+    public int read() throws IOException {
+        var single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (remaining == 0 && !nextFrame()) {
+            return -1;
+        }
+
+        int read = channel.read(ByteBuffer.wrap(buffer, offset, Math.min(length, remaining)));
+        if (read == -1) {
+            throw new EOFException("Connection closed partway through a frame");
+        }
+        remaining -= read;
+        return read;
+    }
+
+    /**
+     * @return false if the end of stream frame was read
+     */
+    private boolean nextFrame() throws IOException {
+        if (ended) {
+            return false;
+        }
+
+        int length = readInt();
+        if (length < 0) {
+            int messageLength = readInt();
+            if (messageLength < 0 || messageLength > MAX_MESSAGE_LENGTH) {
+                throw new IOException("Malformed error frame");
+            }
+            var message = ByteBuffer.allocate(messageLength);
+            readFully(message);
+            ended = true;
+            throw new IOException(new String(message.array(), StandardCharsets.UTF_8));
+        }
+
+        remaining = length;
+        ended = length == 0;
+        return !ended;
+    }
+
+    private int readInt() throws IOException {
+        header.clear();
+        readFully(header);
+        return header.getInt(0);
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new EOFException("Connection closed before the end of stream frame");
+            }
+        }
+    }
+}
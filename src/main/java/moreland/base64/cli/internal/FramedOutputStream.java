@@ -0,0 +1,116 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffers written bytes into length prefixed frames read back by {@link FramedInputStream};
+ * {@link #close()} writes the end of stream frame but leaves the channel open
+ */
+public class FramedOutputStream extends OutputStream {
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer frame;
+    private boolean closed;
+
+    /**
+     * @param channel blocking channel frames are written to
+     * @param frameSize maximum payload of a single frame
+     */
+    public FramedOutputStream(WritableByteChannel channel, int frameSize) {
+        GuardAgainst.argumentBeingNull(channel, "channel");
+        if (frameSize <= 0) {
+            throw new IllegalArgumentException("frameSize");
+        }
+        this.channel = channel;
+        this.frame = ByteBuffer.allocate(Integer.BYTES + frameSize);
+        frame.position(Integer.BYTES);
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        if (!frame.hasRemaining()) {
+            flush();
+        }
+        frame.put((byte) value);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!frame.hasRemaining()) {
+                flush();
+            }
+            int count = Math.min(length, frame.remaining());
+            frame.put(buffer, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes any buffered bytes as a frame
+     */
+    @Override
+    public void flush() throws IOException {
+        int length = frame.position() - Integer.BYTES;
+        if (length > 0) {
+            frame.putInt(0, length).flip();
+            writeFully(frame);
+            frame.clear().position(Integer.BYTES);
+        }
+    }
+
+    /**
+     * Writes any buffered bytes followed by the end of stream frame
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        writeFully(ByteBuffer.allocate(Integer.BYTES).putInt(0, 0));
+        closed = true;
+    }
+
+    /**
+     * Discards any buffered bytes and ends the stream with an error frame carrying {@code message}
+     * @param message error reported to the reader
+     */
+    public void fail(String message) throws IOException {
+        if (closed) {
+            return;
+        }
+        var encodedMessage = message.getBytes(StandardCharsets.UTF_8);
+        var errorFrame = ByteBuffer.allocate(2 * Integer.BYTES + encodedMessage.length)
+            .putInt(-1)
+            .putInt(encodedMessage.length)
+            .put(encodedMessage)
+            .flip();
+        frame.clear().position(Integer.BYTES);
+        writeFully(errorFrame);
+        closed = true;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
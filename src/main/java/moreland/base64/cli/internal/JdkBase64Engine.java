@@ -0,0 +1,105 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Reference engine delegating to {@link java.util.Base64}; whole arrays go straight through,
+ * anything else is staged through a temporary buffer as the JDK has no offset based API. The JDK decoders
+ * accept a single alphabet so input the standard decoder rejects is retried with the URL safe one, input
+ * mixing the two alphabets is rejected unlike the other engines
+ */
+public final class JdkBase64Engine implements Base64Engine {
+
+    public static final String NAME = "jdk";
+
+    private final Base64.Encoder encoder = Base64.getEncoder();
+    private final Base64.Encoder urlSafeEncoder = Base64.getUrlEncoder();
+    private final Base64.Decoder decoder = Base64.getDecoder();
+    private final Base64.Decoder urlSafeDecoder = Base64.getUrlDecoder();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset,
+            Base64Alphabet alphabet) {
+        var encoder = alphabet == Base64Alphabet.URL_SAFE ? urlSafeEncoder : this.encoder;
+        if (offset == 0 && length == source.length && destinationOffset == 0) {
+            return encoder.encode(source, destination);
+        }
+        var encoded = encoder.encode(ByteBuffer.wrap(source, offset, length));
+        int count = encoded.remaining();
+        encoded.get(destination, destinationOffset, count);
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        try {
+            return decode(decoder, source, offset, length, destination, destinationOffset);
+        } catch (IllegalArgumentException e) {
+            try {
+                return decode(urlSafeDecoder, source, offset, length, destination, destinationOffset);
+            } catch (IllegalArgumentException urlSafeFailure) {
+                throw formatException(source, offset, length);
+            }
+        }
+    }
+
+    /**
+     * the JDK reports errors without an offset, the table driven check finds it; input it accepts mixes alphabets,
+     * reported at the first standard only character, anything else is reported without a meaningful offset
+     */
+    private static Base64FormatException formatException(byte[] source, int offset, int length) {
+        try {
+            Base64Codec.decode(source, offset, length, new byte[Base64Codec.decodedLength(source, offset, length)], 0);
+        } catch (Base64FormatException e) {
+            return e;
+        }
+        int end = offset + length;
+        int index = offset;
+        while (index < end && source[index] != '+' && source[index] != '/') {
+            index++;
+        }
+        if (index == end) {
+            return new Base64FormatException("Input rejected by java.util.Base64", 0);
+        }
+        return new Base64FormatException(String.format("Illegal base64 character 0x%02x at offset %d, mixed alphabets",
+            source[index], index - offset), index - offset);
+    }
+
+    private static int decode(Base64.Decoder decoder, byte[] source, int offset, int length, byte[] destination,
+            int destinationOffset) {
+        if (offset == 0 && length == source.length && destinationOffset == 0) {
+            return decoder.decode(source, destination);
+        }
+        var decoded = decoder.decode(ByteBuffer.wrap(source, offset, length));
+        int count = decoded.remaining();
+        decoded.get(destination, destinationOffset, count);
+        return count;
+    }
+}
@@ -0,0 +1,344 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tracks where it is within a JSON document without building any of it, decoding string values found at
+ * {@code path} and passing every other string value through a {@link TextSpanDetector}. The document
+ * is assumed to be well formed, nothing is validated beyond what locating string values needs
+ * <p>
+ * Paths start with {@code $} followed by any of {@code .name}, {@code ['name']}, {@code .*} for any member,
+ * {@code [n]} and {@code [*]} for any element, for example {@code $.attachments[*].content}
+ */
+final class JsonSpanScanner implements SpanScanner {
+
+    private static final int MAX_KEY_LENGTH = 1024;
+
+    /**
+     * a step of a path, {@code name} null for any member and {@code index} -1 for any element
+     */
+    private record Segment(boolean element, String name, int index) {
+    }
+
+    /**
+     * an open object or array; for objects the member being read, for arrays the element
+     */
+    private static final class Frame {
+        private boolean array;
+        private boolean expectingKey;
+        private String key;
+        private int index;
+    }
+
+    private enum State {
+        STRUCTURE,
+        KEY,
+        VALUE,
+        ESCAPE,
+        UNICODE
+    }
+
+    private final List<Segment> path;
+    private final SpanOutput output;
+    private final TextSpanDetector detector;
+    private final List<Frame> frames = new ArrayList<>();
+    private byte[] key = new byte[64];
+    private int keyLength;
+    private int depth;
+    private State state = State.STRUCTURE;
+    private boolean escapeInKey;
+    private boolean matched;
+    private int unicodeDigits;
+    private int unicodeValue;
+
+    /**
+     * @param path selects the string values to decode, null to decode only self delimiting payloads within strings
+     * @param output receives the payloads found
+     */
+    JsonSpanScanner(String path, SpanOutput output) {
+        this.path = path != null ? parse(path) : null;
+        this.output = output;
+        this.detector = new TextSpanDetector(output);
+    }
+
+    @Override
+    public void accept(int character, long offset) throws IOException {
+        switch (state) {
+            case STRUCTURE -> structure(character, offset);
+            case KEY -> {
+                if (character == '"') {
+                    frames.get(depth - 1).key = new String(key, 0, keyLength, StandardCharsets.UTF_8);
+                    state = State.STRUCTURE;
+                } else if (character == '\\') {
+                    escapeInKey = true;
+                    state = State.ESCAPE;
+                } else {
+                    appendKey(character);
+                }
+            }
+            case VALUE -> {
+                if (character == '"') {
+                    endValue();
+                } else if (character == '\\') {
+                    escapeInKey = false;
+                    state = State.ESCAPE;
+                } else {
+                    emit(character, offset);
+                }
+            }
+            case ESCAPE -> escape(character, offset);
+            case UNICODE -> {
+                unicodeValue = unicodeValue << 4 | Character.digit(character, 16);
+                if (++unicodeDigits == 4) {
+                    state = escapeInKey ? State.KEY : State.VALUE;
+                    if (escapeInKey) {
+                        for (var b : String.valueOf((char) unicodeValue).getBytes(StandardCharsets.UTF_8)) {
+                            appendKey(b & 0xFF);
+                        }
+                    } else {
+                        // anything beyond ASCII can't be part of a payload, any stand in that isn't ends it
+                        emit(unicodeValue < 0x80 ? unicodeValue : 0xFF, offset);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Characters of a selected string value up to its closing quote or next escape go to the output as one run
+     */
+    @Override
+    public void accept(byte[] buffer, int offset, int length, long position) throws IOException {
+        int end = offset + length;
+        int index = offset;
+        while (index < end) {
+            if (matched && state == State.VALUE) {
+                int run = index;
+                while (run < end && buffer[run] != '"' && buffer[run] != '\\') {
+                    run++;
+                }
+                output.write(buffer, index, run - index);
+                index = run;
+                if (index == end) {
+                    break;
+                }
+            }
+            accept(buffer[index] & 0xFF, position + (index - offset));
+            index++;
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (state != State.STRUCTURE && matched) {
+            output.fail("unterminated JSON string");
+        }
+        if (matched) {
+            output.close();
+            matched = false;
+        }
+        detector.finish();
+    }
+
+    private void structure(int character, long offset) throws IOException {
+        switch (character) {
+            case '{' -> push(false);
+            case '[' -> push(true);
+            case '}', ']' -> depth = Math.max(0, depth - 1);
+            case ',' -> {
+                if (depth > 0) {
+                    var frame = frames.get(depth - 1);
+                    frame.index++;
+                    frame.expectingKey = !frame.array;
+                }
+            }
+            case ':' -> {
+                if (depth > 0) {
+                    frames.get(depth - 1).expectingKey = false;
+                }
+            }
+            case '"' -> {
+                if (depth > 0 && !frames.get(depth - 1).array && frames.get(depth - 1).expectingKey) {
+                    keyLength = 0;
+                    state = State.KEY;
+                } else {
+                    startValue(offset);
+                }
+            }
+            default -> {
+                // numbers, literals and whitespace need no tracking
+            }
+        }
+    }
+
+    private void push(boolean array) {
+        if (depth == frames.size()) {
+            frames.add(new Frame());
+        }
+        var frame = frames.get(depth++);
+        frame.array = array;
+        frame.expectingKey = !array;
+        frame.key = null;
+        frame.index = 0;
+    }
+
+    private void startValue(long offset) throws IOException {
+        state = State.VALUE;
+        matched = matches();
+        if (matched) {
+            output.open("json " + currentPath(), "bin", offset + 1);
+        } else {
+            detector.boundary();
+        }
+    }
+
+    private void endValue() throws IOException {
+        state = State.STRUCTURE;
+        if (matched) {
+            output.close();
+            matched = false;
+        } else {
+            detector.boundary();
+        }
+    }
+
+    private void escape(int character, long offset) throws IOException {
+        int unescaped = switch (character) {
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'u' -> -1;
+            default -> character;
+        };
+        if (unescaped < 0) {
+            unicodeDigits = 0;
+            unicodeValue = 0;
+            state = State.UNICODE;
+            return;
+        }
+        state = escapeInKey ? State.KEY : State.VALUE;
+        if (escapeInKey) {
+            appendKey(unescaped);
+        } else {
+            emit(unescaped, offset);
+        }
+    }
+
+    private void emit(int character, long offset) throws IOException {
+        if (matched) {
+            output.write(character);
+        } else {
+            detector.accept(character, offset);
+        }
+    }
+
+    private void appendKey(int character) {
+        if (keyLength == key.length && keyLength < MAX_KEY_LENGTH) {
+            key = Arrays.copyOf(key, key.length * 2);
+        }
+        if (keyLength < key.length) {
+            key[keyLength++] = (byte) character;
+        }
+    }
+
+    private boolean matches() {
+        if (path == null || path.size() != depth) {
+            return false;
+        }
+        for (int i = 0; i < depth; i++) {
+            var segment = path.get(i);
+            var frame = frames.get(i);
+            if (segment.element() != frame.array) {
+                return false;
+            }
+            boolean same = frame.array
+                ? segment.index() < 0 || segment.index() == frame.index
+                : segment.name() == null || segment.name().equals(frame.key);
+            if (!same) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String currentPath() {
+        var result = new StringBuilder("$");
+        for (int i = 0; i < depth; i++) {
+            var frame = frames.get(i);
+            if (frame.array) {
+                result.append('[').append(frame.index).append(']');
+            } else {
+                result.append('.').append(frame.key);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code path} isn't of the supported form
+     */
+    private static List<Segment> parse(String path) {
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("JSON path must start with $: " + path);
+        }
+        var segments = new ArrayList<Segment>();
+        int index = 1;
+        while (index < path.length()) {
+            char character = path.charAt(index);
+            if (character == '.') {
+                int end = index + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                var name = path.substring(index + 1, end);
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Empty member name in JSON path " + path);
+                }
+                segments.add(new Segment(false, name.equals("*") ? null : name, -1));
+                index = end;
+            } else if (character == '[') {
+                int end = path.indexOf(']', index);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed [ in JSON path " + path);
+                }
+                var selector = path.substring(index + 1, end).trim();
+                if (selector.equals("*")) {
+                    segments.add(new Segment(true, null, -1));
+                } else if (selector.length() >= 2 && (selector.charAt(0) == '\'' || selector.charAt(0) == '"')
+                        && selector.charAt(selector.length() - 1) == selector.charAt(0)) {
+                    segments.add(new Segment(false, selector.substring(1, selector.length() - 1), -1));
+                } else {
+                    try {
+                        segments.add(new Segment(true, null, Integer.parseInt(selector)));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Unsupported selector [" + selector + "] in JSON path " + path);
+                    }
+                }
+                index = end + 1;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + character + "' in JSON path " + path);
+            }
+        }
+        return segments;
+    }
+}
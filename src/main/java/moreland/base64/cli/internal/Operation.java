@@ -22,7 +22,13 @@ import java.util.Optional;
 public enum Operation {
     UNSUPPORTED,
     ENCODE,
-    DECODE;
+    DECODE,
+    BATCH_ENCODE,
+    BATCH_DECODE,
+    ENCODE_INCREMENTAL,
+    VERIFY,
+    EXTRACT,
+    SERVE;
 
     public static Operation fromArguments(List<String> arguments) {
         GuardAgainst.argumentBeingNull(arguments, "arguments");
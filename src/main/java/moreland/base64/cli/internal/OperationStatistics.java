@@ -0,0 +1,198 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals and latency distribution of one kind of conversion, such as {@code encode.stream};
+ * each call accumulates into a thread confined {@link Sample} which is folded in once complete,
+ * a sample that is never completed leaves no trace
+ */
+public final class OperationStatistics implements OperationStatisticsMXBean {
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder ioNanos = new LongAdder();
+    private final LongAdder codecNanos = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationStatistics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    void record(Sample sample, boolean success) {
+        calls.increment();
+        if (!success) {
+            failures.increment();
+        }
+        bytesIn.add(sample.bytesIn);
+        bytesOut.add(sample.bytesOut);
+        chunks.add(sample.chunks);
+        ioNanos.add(sample.ioNanos);
+        codecNanos.add(sample.codecNanos);
+        latency.record(System.nanoTime() - sample.started);
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getChunks() {
+        return chunks.sum();
+    }
+
+    @Override
+    public long getIoMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ioNanos.sum());
+    }
+
+    @Override
+    public long getCodecMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(codecNanos.sum());
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latency.mean() / 1_000;
+    }
+
+    @Override
+    public long getLatencyP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latency.percentile(50));
+    }
+
+    @Override
+    public long getLatencyP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latency.percentile(99));
+    }
+
+    @Override
+    public long getLatencyP999Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latency.percentile(99.9));
+    }
+
+    @Override
+    public long getMaxLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(latency.max());
+    }
+
+    /**
+     * Measurements of a single call, used by one thread at a time; timing follows a chain of marks,
+     * {@code mark = sample.io(mark)} charges the time since the previous mark to I/O and returns a new one.
+     * The disabled sample ignores everything without reading the clock
+     */
+    public static final class Sample {
+
+        static final Sample DISABLED = new Sample(null);
+
+        private final String operation;
+        private final long started;
+        private long bytesIn;
+        private long bytesOut;
+        private long chunks;
+        private long ioNanos;
+        private long codecNanos;
+
+        Sample(String operation) {
+            this.operation = operation;
+            this.started = operation != null ? System.nanoTime() : 0;
+        }
+
+        /**
+         * @return the current time if recording, otherwise 0
+         */
+        public long mark() {
+            return operation != null ? System.nanoTime() : 0;
+        }
+
+        /**
+         * @param since previous mark
+         * @return new mark
+         */
+        public long io(long since) {
+            if (operation == null) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            ioNanos += now - since;
+            return now;
+        }
+
+        /**
+         * @param since previous mark
+         * @return new mark
+         */
+        public long codec(long since) {
+            if (operation == null) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            codecNanos += now - since;
+            return now;
+        }
+
+        /**
+         * Counts one chunk converted
+         */
+        public void chunk(long in, long out) {
+            chunks++;
+            bytesIn += in;
+            bytesOut += out;
+        }
+
+        /**
+         * Adds bytes without counting a chunk, for totals only known once the call completes
+         */
+        public void bytes(long in, long out) {
+            bytesIn += in;
+            bytesOut += out;
+        }
+
+        /**
+         * Folds this sample into its operation's statistics
+         * @param success false if the call failed
+         */
+        public void complete(boolean success) {
+            if (operation != null) {
+                ConversionStatistics.operation(operation).record(this, success);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+/**
+ * JMX view of a single {@link OperationStatistics}
+ */
+public interface OperationStatisticsMXBean {
+
+    long getCalls();
+
+    long getFailures();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    long getChunks();
+
+    /**
+     * @return time spent blocked reading input or writing output
+     */
+    long getIoMillis();
+
+    /**
+     * @return time spent encoding or decoding
+     */
+    long getCodecMillis();
+
+    double getMeanLatencyMicros();
+
+    long getLatencyP50Micros();
+
+    long getLatencyP99Micros();
+
+    long getLatencyP999Micros();
+
+    long getMaxLatencyMicros();
+}
@@ -0,0 +1,228 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses in the style of pigz: input is cut into blocks deflated independently on the common fork/join pool,
+ * each primed with the last 32K of the block before it so compression is close to that of a single deflater.
+ * Blocks other than the last end in a sync flush, so written in order they form one ordinary gzip or zlib stream
+ * that any inflater reads; the checksum is computed over the input as it is written
+ */
+public final class ParallelDeflaterOutputStream extends OutputStream {
+
+    /**
+     * input compressed by each task, as pigz
+     */
+    public static final int BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int ZLIB_DEFLATE_32K_WINDOW = 0x78;
+
+    private final OutputStream destination;
+    private final boolean gzip;
+    private final int level;
+    private final Checksum checksum;
+    private final int maxPending;
+    private final ArrayDeque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private byte[] dictionary;
+    private long length;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param destination stream receiving the compressed bytes, not closed by this stream
+     * @param gzip true for gzip framing, false for zlib
+     * @param level deflate compression level, 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public ParallelDeflaterOutputStream(OutputStream destination, boolean gzip, int level) {
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        this.destination = destination;
+        this.gzip = gzip;
+        this.level = level;
+        this.checksum = gzip ? new CRC32() : new Adler32();
+        // enough blocks in flight to keep every worker busy while the oldest is written
+        this.maxPending = 2 * ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        write(new byte[] { (byte) value }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] source, int offset, int count) throws IOException {
+        GuardAgainst.argumentBeingNull(source, "source");
+        Objects.checkFromIndexSize(offset, count, source.length);
+        if (finished) {
+            throw new IOException("write beyond end of compressed stream");
+        }
+
+        checksum.update(source, offset, count);
+        length += count;
+        while (count > 0) {
+            int copied = Math.min(count, BLOCK_SIZE - blockLength);
+            System.arraycopy(source, offset, block, blockLength, copied);
+            blockLength += copied;
+            offset += copied;
+            count -= copied;
+            if (blockLength == BLOCK_SIZE) {
+                submit();
+            }
+        }
+    }
+
+    /**
+     * Compresses any buffered input and writes everything written so far, including the trailer, to the destination;
+     * further writes fail. Input of less than a block is compressed on the calling thread
+     * @throws IOException if writing to the destination fails
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        var last = compress(block, blockLength, dictionary, true, level);
+        while (!pending.isEmpty()) {
+            writeBlock(pending.removeFirst());
+        }
+        writeHeader();
+        destination.write(last);
+        writeTrailer();
+    }
+
+    /**
+     * Finishes the compressed stream, the destination is left open
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private void submit() throws IOException {
+        var input = block;
+        int inputLength = blockLength;
+        var inputDictionary = dictionary;
+        pending.addLast(ForkJoinPool.commonPool().submit(() -> compress(input, inputLength, inputDictionary, false, level)));
+
+        dictionary = Arrays.copyOfRange(block, BLOCK_SIZE - DICTIONARY_SIZE, BLOCK_SIZE);
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+
+        while (!pending.isEmpty() && (pending.size() >= maxPending || pending.peekFirst().isDone())) {
+            writeBlock(pending.removeFirst());
+        }
+    }
+
+    private void writeBlock(ForkJoinTask<byte[]> task) throws IOException {
+        try {
+            writeHeader();
+            destination.write(task.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static byte[] compress(byte[] input, int inputLength, byte[] dictionary, boolean last, int level) {
+        var deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input, 0, inputLength);
+            var compressed = new ByteArrayOutputStream(inputLength / 2 + 64);
+            var buffer = new byte[DICTIONARY_SIZE];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressed.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                // a full buffer means the flush may be incomplete, anything less and it's done
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        if (started) {
+            return;
+        }
+        started = true;
+        if (gzip) {
+            // magic, deflate, no flags, no modification time, no extra flags, unknown OS
+            writeLittleEndian(GZIP_MAGIC, 2);
+            destination.write(new byte[] { Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff });
+        } else {
+            int flags = zlibLevelFlags() << 6;
+            flags += 31 - (ZLIB_DEFLATE_32K_WINDOW << 8 | flags) % 31;
+            destination.write(new byte[] { ZLIB_DEFLATE_32K_WINDOW, (byte) flags });
+        }
+    }
+
+    private void writeTrailer() throws IOException {
+        if (gzip) {
+            writeLittleEndian(checksum.getValue(), 4);
+            writeLittleEndian(length, 4);
+        } else {
+            long value = checksum.getValue();
+            destination.write(new byte[] { (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value });
+        }
+    }
+
+    /**
+     * RFC 1950 FLEVEL, informational only
+     */
+    private int zlibLevelFlags() {
+        if (level == Deflater.DEFAULT_COMPRESSION || level == 6) {
+            return 2;
+        }
+        if (level < 2) {
+            return 0;
+        }
+        return level < 6 ? 1 : 3;
+    }
+
+    private void writeLittleEndian(long value, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            destination.write((int) (value >> (8 * i)) & 0xFF);
+        }
+    }
+}
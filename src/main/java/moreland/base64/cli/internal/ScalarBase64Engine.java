@@ -0,0 +1,46 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+/**
+ * Portable engine processing one 3 byte / 4 character group at a time through {@link Base64Codec}
+ */
+public final class ScalarBase64Engine implements Base64Engine {
+
+    public static final String NAME = "scalar";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset,
+            Base64Alphabet alphabet) {
+        return Base64Codec.encode(source, offset, length, destination, destinationOffset, alphabet.encodeTable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        return Base64Codec.decode(source, offset, length, destination, destinationOffset);
+    }
+}
@@ -0,0 +1,114 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per thread scratch buffers and decoders reused across encode and decode calls so that
+ * the steady state allocates nothing; {@link #acquire()} falls back to a fresh instance
+ * if the thread's buffers are already in use further up the call stack
+ */
+public final class ScratchBuffers implements AutoCloseable {
+
+    public static final int BUFFER_SIZE = 4 * 1024;
+
+    private static final ThreadLocal<ScratchBuffers> CACHED = ThreadLocal.withInitial(ScratchBuffers::new);
+    private static final LongAdder ACQUISITIONS = new LongAdder();
+    private static final LongAdder ALLOCATIONS = new LongAdder();
+
+    private final byte[] input = new byte[BUFFER_SIZE];
+    private final byte[] output = new byte[BUFFER_SIZE];
+    private StreamingDecoder strictDecoder;
+    private StreamingDecoder lenientDecoder;
+    private boolean inUse;
+
+    private ScratchBuffers() {
+        if (ConversionStatistics.isEnabled()) {
+            ALLOCATIONS.increment();
+        }
+    }
+
+    /**
+     * @return the calling thread's buffers, or new buffers if those are already in use
+     */
+    public static ScratchBuffers acquire() {
+        if (ConversionStatistics.isEnabled()) {
+            ACQUISITIONS.increment();
+        }
+        var scratch = CACHED.get();
+        if (scratch.inUse) {
+            scratch = new ScratchBuffers();
+        }
+        scratch.inUse = true;
+        return scratch;
+    }
+
+    /**
+     * @return number of calls to {@link #acquire()} while statistics were enabled
+     */
+    public static long acquisitions() {
+        return ACQUISITIONS.sum();
+    }
+
+    /**
+     * @return number of buffers allocated while statistics were enabled, whether for a thread's first use or
+     *         because its buffers were in use
+     */
+    public static long allocations() {
+        return ALLOCATIONS.sum();
+    }
+
+    /**
+     * @return {@link #BUFFER_SIZE} byte buffer for input
+     */
+    public byte[] input() {
+        return input;
+    }
+
+    /**
+     * @return {@link #BUFFER_SIZE} byte buffer for output
+     */
+    public byte[] output() {
+        return output;
+    }
+
+    /**
+     * @param ignoreWhitespace whitespace policy of the returned decoder
+     * @param engine engine the returned decoder decodes runs of whole groups with
+     * @return a reset decoder
+     */
+    public StreamingDecoder decoder(boolean ignoreWhitespace, Base64Engine engine) {
+        if (ignoreWhitespace) {
+            if (lenientDecoder == null || lenientDecoder.engine() != engine) {
+                lenientDecoder = new StreamingDecoder(true, engine);
+            }
+            lenientDecoder.reset();
+            return lenientDecoder;
+        } else {
+            if (strictDecoder == null || strictDecoder.engine() != engine) {
+                strictDecoder = new StreamingDecoder(false, engine);
+            }
+            strictDecoder.reset();
+            return strictDecoder;
+        }
+    }
+
+    /**
+     * returns the buffers to the calling thread
+     */
+    @Override
+    public void close() {
+        inUse = false;
+    }
+}
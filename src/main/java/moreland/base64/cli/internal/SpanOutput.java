@@ -0,0 +1,169 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Decodes one embedded payload at a time to its own file as its characters are found; characters are
+ * buffered and decoded a block at a time so no payload is ever held in memory. A payload that fails to
+ * decode is recorded as failed, its file removed, and the characters remaining in it ignored
+ */
+final class SpanOutput {
+
+    private static final int ENCODED_BUFFER_SIZE = ScratchBuffers.BUFFER_SIZE;
+
+    private final Path directory;
+    private final String prefix;
+    private final UnaryOperator<OutputStream> outputs;
+    private final StreamingDecoder decoder = new StreamingDecoder(true);
+    private final byte[] encoded = new byte[ENCODED_BUFFER_SIZE];
+    private final byte[] decoded = new byte[StreamingDecoder.maxDecodedLength(ENCODED_BUFFER_SIZE)];
+    private final List<ExtractedSpan> spans = new ArrayList<>();
+    private OutputStream stream;
+    private String kind;
+    private long offset;
+    private Path output;
+    private int pending;
+    private long decodedLength;
+    private String error;
+
+    /**
+     * @param directory directory each payload is written to
+     * @param prefix start of each output file name, followed by the payload's number and extension
+     * @param outputs applied to each payload's file output stream as it is opened
+     */
+    SpanOutput(Path directory, String prefix, UnaryOperator<OutputStream> outputs) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.outputs = outputs;
+    }
+
+    boolean isOpen() {
+        return kind != null;
+    }
+
+    /**
+     * Starts a new payload, any open one is closed first
+     * @param kind what the payload was found in
+     * @param extension extension of the output file
+     * @param offset offset within the input of the payload's first character
+     */
+    void open(String kind, String extension, long offset) throws IOException {
+        if (isOpen()) {
+            close();
+        }
+        this.kind = kind;
+        this.offset = offset;
+        this.output = directory.resolve(prefix + "." + (spans.size() + 1) + "." + extension);
+        this.stream = outputs.apply(Files.newOutputStream(output));
+        this.pending = 0;
+        this.decodedLength = 0;
+        this.error = null;
+        decoder.reset();
+    }
+
+    /**
+     * @param character next character of the open payload
+     */
+    void write(int character) throws IOException {
+        if (error != null) {
+            return;
+        }
+        encoded[pending++] = (byte) character;
+        if (pending == encoded.length) {
+            decodePending();
+        }
+    }
+
+    /**
+     * @param source holds the next characters of the open payload
+     * @param offset offset of the first character within {@code source}
+     * @param length number of characters
+     */
+    void write(byte[] source, int offset, int length) throws IOException {
+        while (length > 0 && error == null) {
+            int count = Math.min(length, encoded.length - pending);
+            System.arraycopy(source, offset, encoded, pending, count);
+            pending += count;
+            offset += count;
+            length -= count;
+            if (pending == encoded.length) {
+                decodePending();
+            }
+        }
+    }
+
+    /**
+     * Marks the open payload as failed, it is closed by the next call to {@link #close()}
+     * @param message description of the problem
+     */
+    void fail(String message) {
+        if (error == null) {
+            error = message;
+        }
+    }
+
+    /**
+     * Completes the open payload and records its outcome
+     */
+    void close() throws IOException {
+        if (!isOpen()) {
+            return;
+        }
+        try {
+            if (error == null) {
+                decodePending();
+            }
+            if (error == null) {
+                try {
+                    int count = decoder.finish(decoded, 0);
+                    stream.write(decoded, 0, count);
+                    decodedLength += count;
+                } catch (Base64FormatException e) {
+                    error = e.getMessage();
+                }
+            }
+        } finally {
+            stream.close();
+            if (error != null) {
+                Files.deleteIfExists(output);
+            }
+            spans.add(new ExtractedSpan(kind, offset, output, error == null ? decodedLength : 0, error == null,
+                error == null ? "" : error));
+            kind = null;
+            stream = null;
+        }
+    }
+
+    List<ExtractedSpan> spans() {
+        return spans;
+    }
+
+    private void decodePending() throws IOException {
+        try {
+            int count = decoder.decode(encoded, 0, pending, decoded, 0);
+            stream.write(decoded, 0, count);
+            decodedLength += count;
+        } catch (Base64FormatException e) {
+            error = e.getMessage();
+        }
+        pending = 0;
+    }
+}
@@ -0,0 +1,46 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+
+/**
+ * Receives the input of an extraction one character at a time, writing any payloads it finds to a {@link SpanOutput}
+ */
+interface SpanScanner {
+
+    /**
+     * @param character next character of the input, 0 to 255
+     * @param offset offset of {@code character} within the input
+     */
+    void accept(int character, long offset) throws IOException;
+
+    /**
+     * Passes each of {@code length} characters of {@code buffer} to {@link #accept(int, long)}, scanners override
+     * this to hand runs of payload characters to the output in one call
+     * @param buffer characters of the input
+     * @param offset offset of the first character within {@code buffer}
+     * @param length number of characters
+     * @param position offset of the first character within the input
+     */
+    default void accept(byte[] buffer, int offset, int length, long position) throws IOException {
+        for (int i = 0; i < length; i++) {
+            accept(buffer[offset + i] & 0xFF, position + i);
+        }
+    }
+
+    /**
+     * Called at the end of input, closes any open payload
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,500 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental Base64 decoder, input may be split at any point between calls to
+ * {@link #decode(byte[], int, int, byte[], int)}; any partial 4 character group is
+ * carried over to the next call and only completed by {@link #finish(byte[], int)}.
+ * Runs of whole groups between whitespace, padding and carried groups are decoded by a {@link Base64Engine},
+ * so its acceptance rules apply to them; measuring decodes runs into a discarded buffer to accept exactly the same input
+ */
+public final class StreamingDecoder {
+
+    private static final int WHITESPACE = Base64Codec.WHITESPACE_VALUE;
+    private static final int PAD = Base64Codec.PAD_VALUE;
+    private static final int[] DECODE_TABLE = Base64Codec.DECODE_TABLE;
+    private static final int MINIMUM_ENGINE_RUN = 32;
+    private static final int RUN_BUFFER_SIZE = 16 * 1024;
+
+    private final boolean ignoreWhitespace;
+    private final Base64Engine engine;
+    private final boolean delegatesRuns;
+    private byte[] runSource;
+    private byte[] runDestination;
+    private int bits;
+    private int completedGroup;
+    private int groupLength;
+    private int padding;
+    private boolean ended;
+    private long position;
+
+    /**
+     * @param ignoreWhitespace if true spaces, tabs and line breaks are skipped; otherwise they are rejected
+     */
+    public StreamingDecoder(boolean ignoreWhitespace) {
+        this(ignoreWhitespace, new ScalarBase64Engine());
+    }
+
+    /**
+     * @param ignoreWhitespace if true spaces, tabs and line breaks are skipped; otherwise they are rejected
+     * @param engine engine decoding runs of whole groups
+     */
+    public StreamingDecoder(boolean ignoreWhitespace, Base64Engine engine) {
+        GuardAgainst.argumentBeingNull(engine, "engine");
+        this.ignoreWhitespace = ignoreWhitespace;
+        this.engine = engine;
+        // the scalar engine decodes with the same table as the loops below, handing it runs would only add a scan
+        this.delegatesRuns = !(engine instanceof ScalarBase64Engine);
+    }
+
+    /**
+     * @return engine decoding runs of whole groups
+     */
+    public Base64Engine engine() {
+        return engine;
+    }
+
+    /**
+     * Maximum number of bytes a single call to {@link #decode(byte[], int, int, byte[], int)}
+     * may write for {@code encodedLength} characters of input, including carried over characters
+     * @param encodedLength number of characters passed in a single call
+     * @return required capacity of the destination
+     */
+    public static int maxDecodedLength(int encodedLength) {
+        return (encodedLength + 3) / 4 * 3;
+    }
+
+    /**
+     * Decodes {@code length} characters of {@code source} starting at {@code offset}
+     * @param source base64 encoded characters
+     * @param offset offset of first character in {@code source}
+     * @param length number of characters to decode
+     * @param destination buffer to write decoded bytes to, must have at least
+     *        {@link #maxDecodedLength(int)} bytes available from {@code destinationOffset}
+     * @param destinationOffset offset of first byte written in {@code destination}
+     * @return number of bytes written
+     * @throws Base64FormatException if input contains an illegal character or misplaced padding
+     */
+    public int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int index = offset;
+        int end = offset + length;
+        int written = destinationOffset;
+
+        while (index < end) {
+            if (groupLength == 0 && padding == 0 && !ended) {
+                if (delegatesRuns) {
+                    int run = wholeGroupRun(source, index, end);
+                    if (run >= MINIMUM_ENGINE_RUN) {
+                        written += decodeRun(source, index, run, destination, written, position + (index - offset));
+                        index += run;
+                    }
+                }
+                // fast path for whole groups, anything else falls through to the per character path below
+                while (index + 4 <= end) {
+                    int a = DECODE_TABLE[source[index] & 0xFF];
+                    int b = DECODE_TABLE[source[index + 1] & 0xFF];
+                    int c = DECODE_TABLE[source[index + 2] & 0xFF];
+                    int d = DECODE_TABLE[source[index + 3] & 0xFF];
+                    if ((a | b | c | d) < 0) {
+                        break;
+                    }
+                    int group = a << 18 | b << 12 | c << 6 | d;
+                    destination[written++] = (byte) (group >> 16);
+                    destination[written++] = (byte) (group >> 8);
+                    destination[written++] = (byte) group;
+                    index += 4;
+                }
+                if (index >= end) {
+                    break;
+                }
+            }
+            int count = decodeCharacter(source[index] & 0xFF, position + (index - offset));
+            for (int i = 0; i < count; i++) {
+                destination[written++] = (byte) (completedGroup >> (16 - 8 * i));
+            }
+            index++;
+        }
+
+        position += length;
+        return written - destinationOffset;
+    }
+
+    /**
+     * Decodes all remaining characters of {@code source}, heap or direct, without copying them
+     * @param source base64 encoded characters, position is advanced to its limit
+     * @param destination buffer receiving the decoded bytes, must have at least
+     *        {@link #maxDecodedLength(int)} bytes remaining; position is advanced past written output
+     * @return number of bytes written
+     * @throws Base64FormatException if input contains an illegal character or misplaced padding
+     */
+    public int decode(ByteBuffer source, ByteBuffer destination) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int start = source.position();
+        int end = source.limit();
+        int written = destination.position();
+
+        int index = start;
+        while (index < end) {
+            if (groupLength == 0 && padding == 0 && !ended) {
+                if (delegatesRuns) {
+                    int run = wholeGroupRun(source, index, end);
+                    if (run >= MINIMUM_ENGINE_RUN) {
+                        written += decodeRun(source, index, run, destination, written, position + (index - start));
+                        index += run;
+                    }
+                }
+                while (index + 4 <= end) {
+                    int a = DECODE_TABLE[source.get(index) & 0xFF];
+                    int b = DECODE_TABLE[source.get(index + 1) & 0xFF];
+                    int c = DECODE_TABLE[source.get(index + 2) & 0xFF];
+                    int d = DECODE_TABLE[source.get(index + 3) & 0xFF];
+                    if ((a | b | c | d) < 0) {
+                        break;
+                    }
+                    int group = a << 18 | b << 12 | c << 6 | d;
+                    destination.put(written++, (byte) (group >> 16));
+                    destination.put(written++, (byte) (group >> 8));
+                    destination.put(written++, (byte) group);
+                    index += 4;
+                }
+                if (index >= end) {
+                    break;
+                }
+            }
+            int count = decodeCharacter(source.get(index) & 0xFF, position + (index - start));
+            for (int i = 0; i < count; i++) {
+                destination.put(written++, (byte) (completedGroup >> (16 - 8 * i)));
+            }
+            index++;
+        }
+
+        position += end - start;
+        source.position(end);
+        int count = written - destination.position();
+        destination.position(written);
+        return count;
+    }
+
+    /**
+     * Checks {@code length} characters of {@code source} exactly as {@link #decode(byte[], int, int, byte[], int)}
+     * would, without writing anything
+     * @param source base64 encoded characters
+     * @param offset offset of first character in {@code source}
+     * @param length number of characters to check
+     * @return number of bytes decoding them would write
+     * @throws Base64FormatException if input contains an illegal character or misplaced padding
+     */
+    public int measure(byte[] source, int offset, int length) {
+        GuardAgainst.argumentBeingNull(source, "source");
+
+        int index = offset;
+        int end = offset + length;
+        int count = 0;
+
+        while (index < end) {
+            if (groupLength == 0 && padding == 0 && !ended) {
+                if (delegatesRuns) {
+                    int run = wholeGroupRun(source, index, end);
+                    if (run >= MINIMUM_ENGINE_RUN) {
+                        count += measureRun(source, index, run, position + (index - offset));
+                        index += run;
+                    }
+                }
+                while (index + 4 <= end
+                        && (DECODE_TABLE[source[index] & 0xFF] | DECODE_TABLE[source[index + 1] & 0xFF]
+                            | DECODE_TABLE[source[index + 2] & 0xFF] | DECODE_TABLE[source[index + 3] & 0xFF]) >= 0) {
+                    count += 3;
+                    index += 4;
+                }
+                if (index >= end) {
+                    break;
+                }
+            }
+            count += decodeCharacter(source[index] & 0xFF, position + (index - offset));
+            index++;
+        }
+
+        position += length;
+        return count;
+    }
+
+    /**
+     * Checks all remaining characters of {@code source}, heap or direct, exactly as
+     * {@link #decode(ByteBuffer, ByteBuffer)} would, without writing anything
+     * @param source base64 encoded characters, position is advanced to its limit
+     * @return number of bytes decoding them would write
+     * @throws Base64FormatException if input contains an illegal character or misplaced padding
+     */
+    public int measure(ByteBuffer source) {
+        GuardAgainst.argumentBeingNull(source, "source");
+
+        int start = source.position();
+        int end = source.limit();
+        int count = 0;
+
+        int index = start;
+        while (index < end) {
+            if (groupLength == 0 && padding == 0 && !ended) {
+                if (delegatesRuns) {
+                    int run = wholeGroupRun(source, index, end);
+                    if (run >= MINIMUM_ENGINE_RUN) {
+                        count += measureRun(source, index, run, position + (index - start));
+                        index += run;
+                    }
+                }
+                while (index + 4 <= end
+                        && (DECODE_TABLE[source.get(index) & 0xFF] | DECODE_TABLE[source.get(index + 1) & 0xFF]
+                            | DECODE_TABLE[source.get(index + 2) & 0xFF] | DECODE_TABLE[source.get(index + 3) & 0xFF]) >= 0) {
+                    count += 3;
+                    index += 4;
+                }
+                if (index >= end) {
+                    break;
+                }
+            }
+            count += decodeCharacter(source.get(index) & 0xFF, position + (index - start));
+            index++;
+        }
+
+        position += end - start;
+        source.position(end);
+        return count;
+    }
+
+    /**
+     * Completes any partial group left over from previous calls to {@link #measure(byte[], int, int)}
+     * and resets the decoder
+     * @return number of bytes the partial group decodes to, at most 2
+     * @throws Base64FormatException if the input ended partway through a group or its padding
+     */
+    public int finish() {
+        return finishGroup();
+    }
+
+    /**
+     * Completes any partial group left over from previous calls and resets the decoder
+     * @param destination buffer to write remaining bytes to, requires at most 2 bytes
+     * @param destinationOffset offset of first byte written in {@code destination}
+     * @return number of bytes written
+     * @throws Base64FormatException if the input ended partway through a group or its padding
+     */
+    public int finish(byte[] destination, int destinationOffset) {
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int count = finishGroup();
+        for (int i = 0; i < count; i++) {
+            destination[destinationOffset + i] = (byte) (completedGroup >> (16 - 8 * i));
+        }
+        return count;
+    }
+
+    /**
+     * Completes any partial group left over from previous calls and resets the decoder
+     * @param destination buffer to write remaining bytes to, requires at most 2 bytes remaining
+     * @return number of bytes written
+     * @throws Base64FormatException if the input ended partway through a group or its padding
+     */
+    public int finish(ByteBuffer destination) {
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int count = finishGroup();
+        for (int i = 0; i < count; i++) {
+            destination.put((byte) (completedGroup >> (16 - 8 * i)));
+        }
+        return count;
+    }
+
+    /**
+     * Discards any carried over state so the decoder can be reused for a new input
+     */
+    public void reset() {
+        reset(0);
+    }
+
+    /**
+     * Discards any carried over state so the decoder can be reused for input that starts
+     * {@code position} characters into a larger source, used as the base of reported offsets
+     * @param position offset of the next character within the overall input
+     */
+    public void reset(long position) {
+        bits = 0;
+        groupLength = 0;
+        padding = 0;
+        ended = false;
+        this.position = position;
+    }
+
+    private int finishGroup() {
+        try {
+            if (ended || groupLength == 0) {
+                return 0;
+            }
+            if (padding > 0) {
+                throw new Base64FormatException("Incomplete padding at end of input", position);
+            }
+            if (groupLength == 1) {
+                throw new Base64FormatException("Last unit does not have at least 2 base64 characters", position);
+            }
+            return completePartialGroup();
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * @return number of bytes, taken from the top of {@link #completedGroup}, completed by {@code character}
+     */
+    private int decodeCharacter(int character, long characterPosition) {
+        int value = DECODE_TABLE[character];
+
+        if (value >= 0) {
+            if (ended || padding > 0) {
+                throw illegalCharacter(character, characterPosition, "after padding");
+            }
+            bits = bits << 6 | value;
+            if (++groupLength < 4) {
+                return 0;
+            }
+            completedGroup = bits;
+            bits = 0;
+            groupLength = 0;
+            return 3;
+        }
+
+        if (value == PAD) {
+            if (ended || groupLength < 2) {
+                throw illegalCharacter(character, characterPosition, "misplaced padding");
+            }
+            if (groupLength + ++padding < 4) {
+                return 0;
+            }
+            ended = true;
+            return completePartialGroup();
+        }
+
+        if (value == WHITESPACE && ignoreWhitespace) {
+            return 0;
+        }
+        throw illegalCharacter(character, characterPosition, "illegal character");
+    }
+
+    /**
+     * @return number of characters, a multiple of 4, from {@code index} that are all in the alphabet
+     */
+    private static int wholeGroupRun(byte[] source, int index, int end) {
+        int runEnd = index;
+        while (runEnd < end && DECODE_TABLE[source[runEnd] & 0xFF] >= 0) {
+            runEnd++;
+        }
+        return (runEnd - index) & ~3;
+    }
+
+    private static int wholeGroupRun(ByteBuffer source, int index, int end) {
+        int runEnd = index;
+        while (runEnd < end && DECODE_TABLE[source.get(runEnd) & 0xFF] >= 0) {
+            runEnd++;
+        }
+        return (runEnd - index) & ~3;
+    }
+
+    /**
+     * Decodes {@code run} characters found by {@link #wholeGroupRun(byte[], int, int)} through the engine
+     * @param runPosition offset of the run's first character within the overall input
+     * @return number of bytes written
+     */
+    private int decodeRun(byte[] source, int index, int run, byte[] destination, int written, long runPosition) {
+        try {
+            return engine.decode(source, index, run, destination, written);
+        } catch (Base64FormatException e) {
+            // every character is in the table's alphabet, only stricter engines such as the jdk's, which won't mix
+            // alphabets, get here
+            int offset = (int) Math.min(Math.max(e.offset(), 0), run - 1);
+            throw illegalCharacter(source[index + offset] & 0xFF, runPosition + offset,
+                "rejected by " + engine.name() + " engine");
+        }
+    }
+
+    /**
+     * Decodes a run as {@link #decodeRun(byte[], int, int, byte[], int, long)} does; direct and read only buffers
+     * are copied through arrays a block at a time since engines only decode arrays
+     */
+    private int decodeRun(ByteBuffer source, int index, int run, ByteBuffer destination, int written, long runPosition) {
+        if (source.hasArray() && destination.hasArray()) {
+            return decodeRun(source.array(), source.arrayOffset() + index, run,
+                destination.array(), destination.arrayOffset() + written, runPosition);
+        }
+        allocateRunBuffers();
+
+        int count = 0;
+        for (int done = 0; done < run; ) {
+            int length = Math.min(RUN_BUFFER_SIZE, run - done);
+            source.get(index + done, runSource, 0, length);
+            int decoded = decodeRun(runSource, 0, length, runDestination, 0, runPosition + done);
+            destination.put(written + count, runDestination, 0, decoded);
+            count += decoded;
+            done += length;
+        }
+        return count;
+    }
+
+    /**
+     * Checks a run as {@link #decodeRun(byte[], int, int, byte[], int, long)} would, discarding the output
+     * @return number of bytes the run decodes to
+     */
+    private int measureRun(byte[] source, int index, int run, long runPosition) {
+        allocateRunBuffers();
+        for (int done = 0; done < run; done += RUN_BUFFER_SIZE) {
+            decodeRun(source, index + done, Math.min(RUN_BUFFER_SIZE, run - done), runDestination, 0, runPosition + done);
+        }
+        return run / 4 * 3;
+    }
+
+    private int measureRun(ByteBuffer source, int index, int run, long runPosition) {
+        if (source.hasArray()) {
+            return measureRun(source.array(), source.arrayOffset() + index, run, runPosition);
+        }
+        allocateRunBuffers();
+        for (int done = 0; done < run; done += RUN_BUFFER_SIZE) {
+            int length = Math.min(RUN_BUFFER_SIZE, run - done);
+            source.get(index + done, runSource, 0, length);
+            decodeRun(runSource, 0, length, runDestination, 0, runPosition + done);
+        }
+        return run / 4 * 3;
+    }
+
+    private void allocateRunBuffers() {
+        if (runSource == null) {
+            runSource = new byte[RUN_BUFFER_SIZE];
+            runDestination = new byte[RUN_BUFFER_SIZE / 4 * 3];
+        }
+    }
+
+    private int completePartialGroup() {
+        completedGroup = bits << (6 * (4 - groupLength));
+        return groupLength - 1;
+    }
+
+    private static Base64FormatException illegalCharacter(int character, long characterPosition, String reason) {
+        return new Base64FormatException(
+            String.format("Illegal base64 character 0x%02x at offset %d, %s", character, characterPosition, reason),
+            characterPosition);
+    }
+}
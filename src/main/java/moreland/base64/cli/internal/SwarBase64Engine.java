@@ -0,0 +1,132 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * SIMD within a register engine: loads 8 bytes at a time as a {@code long}, encoding 6 bytes through
+ * 4 lookups of a 12 bit table and decoding 8 characters through 8 lookups of shift positioned tables
+ * whose invalid entries are all ones, so a single sign test validates both groups; padding, the final
+ * partial groups and anything invalid fall back to {@link Base64Codec}
+ */
+public final class SwarBase64Engine implements Base64Engine {
+
+    public static final String NAME = "swar";
+
+    private static final VarHandle LONG_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * 12 bit value to its two encoded characters, first character in the high byte, for each alphabet
+     */
+    private static final short[] STANDARD_ENCODE_PAIRS = encodePairs(Base64Alphabet.STANDARD);
+    private static final short[] URL_SAFE_ENCODE_PAIRS = encodePairs(Base64Alphabet.URL_SAFE);
+    private static final int[] DECODE_0 = new int[256];
+    private static final int[] DECODE_1 = new int[256];
+    private static final int[] DECODE_2 = new int[256];
+    private static final int[] DECODE_3 = new int[256];
+
+    static {
+        for (int character = 0; character < 256; character++) {
+            int value = Base64Codec.DECODE_TABLE[character];
+            DECODE_0[character] = value < 0 ? -1 : value << 18;
+            DECODE_1[character] = value < 0 ? -1 : value << 12;
+            DECODE_2[character] = value < 0 ? -1 : value << 6;
+            DECODE_3[character] = value < 0 ? -1 : value;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset,
+            Base64Alphabet alphabet) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        var pairs = alphabet == Base64Alphabet.URL_SAFE ? URL_SAFE_ENCODE_PAIRS : STANDARD_ENCODE_PAIRS;
+        int index = offset;
+        int end = offset + length;
+        int written = destinationOffset;
+
+        // each load reads 8 bytes but only consumes the first 6, the remaining 2 are read again next iteration
+        while (end - index >= 8 && destination.length - written >= 8) {
+            long bits = (long) LONG_BIG_ENDIAN.get(source, index);
+            long encoded = (long) (pairs[(int) (bits >>> 52)] & 0xFFFF) << 48
+                | (long) (pairs[(int) (bits >>> 40) & 0xFFF] & 0xFFFF) << 32
+                | (long) (pairs[(int) (bits >>> 28) & 0xFFF] & 0xFFFF) << 16
+                | (pairs[(int) (bits >>> 16) & 0xFFF] & 0xFFFF);
+            LONG_BIG_ENDIAN.set(destination, written, encoded);
+            index += 6;
+            written += 8;
+        }
+
+        return written - destinationOffset
+            + Base64Codec.encode(source, index, end - index, destination, written, alphabet.encodeTable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int index = offset;
+        int end = offset + length;
+        int written = destinationOffset;
+
+        // each store writes 8 bytes of which only the first 6 are kept; requiring 8 characters beyond those decoded
+        // guarantees at least 2 more bytes of output overwrite the excess, whether from here or the scalar tail
+        while (end - index >= 16 && destination.length - written >= 8) {
+            long characters = (long) LONG_BIG_ENDIAN.get(source, index);
+            int first = DECODE_0[(int) (characters >>> 56)]
+                | DECODE_1[(int) (characters >>> 48) & 0xFF]
+                | DECODE_2[(int) (characters >>> 40) & 0xFF]
+                | DECODE_3[(int) (characters >>> 32) & 0xFF];
+            int second = DECODE_0[(int) (characters >>> 24) & 0xFF]
+                | DECODE_1[(int) (characters >>> 16) & 0xFF]
+                | DECODE_2[(int) (characters >>> 8) & 0xFF]
+                | DECODE_3[(int) characters & 0xFF];
+            if ((first | second) < 0) {
+                break;
+            }
+            LONG_BIG_ENDIAN.set(destination, written, (long) first << 40 | (long) second << 16);
+            index += 8;
+            written += 6;
+        }
+
+        return written - destinationOffset
+            + Base64Codec.decode(source, index, end - index, destination, written, index - offset);
+    }
+
+    private static short[] encodePairs(Base64Alphabet alphabet) {
+        var pairs = new short[1 << 12];
+        for (int value = 0; value < pairs.length; value++) {
+            pairs[value] = (short) (alphabet.character(value >>> 6) << 8 | alphabet.character(value & 0x3F));
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,275 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds self delimiting payloads in free text: PEM blocks, from a {@code -----BEGIN label-----} line to the
+ * matching {@code -----END} line with any RFC 1421 headers skipped, and {@code data:[type];base64,} URIs, which
+ * end at the first character that can't be part of the encoding. Used on its own for plain text and for the
+ * string values and text of JSON and XML that aren't otherwise selected
+ */
+final class TextSpanDetector implements SpanScanner {
+
+    private static final byte[] PEM_BEGIN = "-----BEGIN ".getBytes(StandardCharsets.US_ASCII);
+    private static final String PEM_END = "-----END";
+    private static final String PEM_DASHES = "-----";
+    private static final byte[] DATA_SCHEME = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final String BASE64_PARAMETER = ";base64";
+    private static final int MAX_LABEL_LENGTH = 64;
+    private static final int MAX_MEDIA_TYPE_LENGTH = 255;
+    private static final int MAX_LINE_LENGTH = 256;
+
+    private enum State {
+        SCAN,
+        PEM_LABEL,
+        PEM_BEGIN_LINE,
+        PEM_BODY,
+        DATA_MEDIA_TYPE,
+        DATA_PAYLOAD
+    }
+
+    private final SpanOutput output;
+    private final StringBuilder label = new StringBuilder();
+    private final byte[] line = new byte[MAX_LINE_LENGTH];
+    private State state = State.SCAN;
+    private boolean lineStart = true;
+    private int pemMatched;
+    private int dataMatched;
+    private int lineLength;
+    private boolean lineOverflowed;
+    private boolean sawData;
+    private boolean inHeader;
+
+    TextSpanDetector(SpanOutput output) {
+        this.output = output;
+    }
+
+    @Override
+    public void accept(int character, long offset) throws IOException {
+        switch (state) {
+            case SCAN -> scan(character);
+            case PEM_LABEL -> pemLabel(character);
+            case PEM_BEGIN_LINE -> {
+                if (character == '\n') {
+                    state = State.PEM_BODY;
+                    sawData = false;
+                    inHeader = false;
+                    lineLength = 0;
+                    lineOverflowed = false;
+                    output.open("pem " + label, "der", offset + 1);
+                }
+            }
+            case PEM_BODY -> pemBody(character);
+            case DATA_MEDIA_TYPE -> dataMediaType(character, offset);
+            case DATA_PAYLOAD -> {
+                if (isPayload(character)) {
+                    output.write(character);
+                } else {
+                    output.close();
+                    state = State.SCAN;
+                    scan(character);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Characters of a {@code data:} URI's payload go to the output as one run
+     */
+    @Override
+    public void accept(byte[] buffer, int offset, int length, long position) throws IOException {
+        int end = offset + length;
+        int index = offset;
+        while (index < end) {
+            if (state == State.DATA_PAYLOAD) {
+                int run = index;
+                while (run < end && isPayload(buffer[run] & 0xFF)) {
+                    run++;
+                }
+                output.write(buffer, index, run - index);
+                index = run;
+                if (index == end) {
+                    break;
+                }
+            }
+            accept(buffer[index] & 0xFF, position + (index - offset));
+            index++;
+        }
+    }
+
+    /**
+     * Marks the end of a run of text, such as a JSON string, no payload continues past it
+     */
+    void boundary() throws IOException {
+        if (state == State.PEM_BODY && !lineOverflowed && lineLength > 0) {
+            // the end line needn't be followed by a line break
+            pemLine();
+        }
+        if (state == State.PEM_BODY) {
+            output.fail("missing " + PEM_END + " line");
+        }
+        if (state == State.PEM_BODY || state == State.DATA_PAYLOAD) {
+            output.close();
+        }
+        state = State.SCAN;
+        lineStart = true;
+        pemMatched = 0;
+        dataMatched = 0;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        boundary();
+    }
+
+    private static boolean isPayload(int character) {
+        int value = Base64Codec.DECODE_TABLE[character];
+        return value >= 0 || value == Base64Codec.PAD_VALUE;
+    }
+
+    private void scan(int character) {
+        if (pemMatched > 0 && character == PEM_BEGIN[pemMatched]) {
+            if (++pemMatched == PEM_BEGIN.length) {
+                state = State.PEM_LABEL;
+                label.setLength(0);
+                pemMatched = 0;
+                dataMatched = 0;
+                return;
+            }
+        } else {
+            pemMatched = lineStart && character == '-' ? 1 : 0;
+        }
+
+        int lower = character >= 'A' && character <= 'Z' ? character + ('a' - 'A') : character;
+        if (lower == DATA_SCHEME[dataMatched]) {
+            if (++dataMatched == DATA_SCHEME.length) {
+                state = State.DATA_MEDIA_TYPE;
+                label.setLength(0);
+                pemMatched = 0;
+                dataMatched = 0;
+                return;
+            }
+        } else {
+            dataMatched = lower == DATA_SCHEME[0] ? 1 : 0;
+        }
+
+        // indented blocks, as in YAML or XML, still count as starting a line
+        lineStart = character == '\n' || (lineStart && (character == ' ' || character == '\t'));
+    }
+
+    private void pemLabel(int character) {
+        if (character == '\n' || label.length() > MAX_LABEL_LENGTH) {
+            state = State.SCAN;
+            lineStart = character == '\n';
+            return;
+        }
+        label.append((char) character);
+        if (label.length() >= PEM_DASHES.length() && label.lastIndexOf(PEM_DASHES) == label.length() - PEM_DASHES.length()) {
+            label.setLength(label.length() - PEM_DASHES.length());
+            state = State.PEM_BEGIN_LINE;
+        }
+    }
+
+    private void pemBody(int character) throws IOException {
+        if (character == '\n') {
+            if (!lineOverflowed) {
+                pemLine();
+            }
+            lineLength = 0;
+            lineOverflowed = false;
+            return;
+        }
+        if (lineOverflowed) {
+            output.write(character);
+            return;
+        }
+        line[lineLength++] = (byte) character;
+        if (lineLength == line.length) {
+            // too long for a header or the end line, so it can only be data
+            for (int i = 0; i < lineLength; i++) {
+                output.write(line[i] & 0xFF);
+            }
+            sawData = true;
+            lineOverflowed = true;
+        }
+    }
+
+    private void pemLine() throws IOException {
+        int start = 0;
+        while (start < lineLength && (line[start] == ' ' || line[start] == '\t')) {
+            start++;
+        }
+        var text = new String(line, start, lineLength - start, StandardCharsets.ISO_8859_1).stripTrailing();
+
+        if (text.startsWith(PEM_END)) {
+            output.close();
+            state = State.SCAN;
+            lineStart = true;
+            return;
+        }
+        if (!sawData) {
+            // RFC 1421 headers such as Proc-Type come first, followed by a blank line; continuation lines are indented
+            boolean continuation = inHeader && start > 0 && !text.isEmpty();
+            if (text.isEmpty() || text.indexOf(':') >= 0 || continuation) {
+                inHeader = !text.isEmpty();
+                return;
+            }
+        }
+        for (int i = start; i < lineLength; i++) {
+            output.write(line[i] & 0xFF);
+        }
+        sawData = true;
+    }
+
+    private void dataMediaType(int character, long offset) throws IOException {
+        if (character == ',') {
+            var mediaType = label.toString();
+            if (mediaType.regionMatches(true, mediaType.length() - BASE64_PARAMETER.length(), BASE64_PARAMETER, 0, BASE64_PARAMETER.length())) {
+                var type = mediaType.substring(0, mediaType.length() - BASE64_PARAMETER.length());
+                output.open("data:" + type, extension(type), offset + 1);
+                state = State.DATA_PAYLOAD;
+            } else {
+                state = State.SCAN;
+            }
+            return;
+        }
+        if (character <= ' ' || character >= 0x7F || character == '"' || character == '\'' || character == '<'
+                || character == '>' || label.length() >= MAX_MEDIA_TYPE_LENGTH) {
+            state = State.SCAN;
+            scan(character);
+            return;
+        }
+        label.append((char) character);
+    }
+
+    /**
+     * @return file extension for {@code mediaType}, its subtype up to any suffix or parameters, such as {@code png}
+     */
+    private static String extension(String mediaType) {
+        int slash = mediaType.indexOf('/');
+        if (slash < 0) {
+            return "bin";
+        }
+        var subtype = mediaType.substring(slash + 1).split("[;+]", 2)[0].toLowerCase();
+        if (subtype.isEmpty() || subtype.equals("octet-stream") || !subtype.chars().allMatch(Character::isLetterOrDigit)
+                || subtype.length() > 10) {
+            return "bin";
+        }
+        return subtype;
+    }
+}
@@ -0,0 +1,139 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Splits the time of a pass that interleaves I/O with conversion, such as one through compression streams or
+ * an extraction, between the two: time spent inside the wrapped streams is charged to I/O and the time between
+ * their calls to the codec. Used by one thread at a time, as its {@link OperationStatistics.Sample} is
+ */
+public final class TimedStreams {
+
+    private final OperationStatistics.Sample sample;
+    private final boolean enabled;
+    private long mark;
+
+    /**
+     * @param sample sample charged, timing starts now
+     */
+    public TimedStreams(OperationStatistics.Sample sample) {
+        GuardAgainst.argumentBeingNull(sample, "sample");
+        this.sample = sample;
+        this.enabled = ConversionStatistics.isEnabled();
+        this.mark = sample.mark();
+    }
+
+    /**
+     * @return {@code source} charging its reads to I/O, or {@code source} itself if statistics are disabled
+     */
+    public InputStream input(InputStream source) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        if (!enabled) {
+            return source;
+        }
+        return new FilterInputStream(source) {
+            @Override
+            public int read() throws IOException {
+                beginIo();
+                try {
+                    return in.read();
+                } finally {
+                    endIo();
+                }
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                beginIo();
+                try {
+                    return in.read(buffer, offset, length);
+                } finally {
+                    endIo();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return {@code destination} charging its writes, flushes and close to I/O, or {@code destination}
+     *         itself if statistics are disabled
+     */
+    public OutputStream output(OutputStream destination) {
+        GuardAgainst.argumentBeingNull(destination, "destination");
+        if (!enabled) {
+            return destination;
+        }
+        return new FilterOutputStream(destination) {
+            @Override
+            public void write(int value) throws IOException {
+                beginIo();
+                try {
+                    out.write(value);
+                } finally {
+                    endIo();
+                }
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                beginIo();
+                try {
+                    out.write(buffer, offset, length);
+                } finally {
+                    endIo();
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                beginIo();
+                try {
+                    out.flush();
+                } finally {
+                    endIo();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                beginIo();
+                try {
+                    out.close();
+                } finally {
+                    endIo();
+                }
+            }
+        };
+    }
+
+    /**
+     * Charges the time since the last I/O call to the codec, call once the pass is complete
+     */
+    public void finish() {
+        mark = sample.codec(mark);
+    }
+
+    private void beginIo() {
+        mark = sample.codec(mark);
+    }
+
+    private void endIo() {
+        mark = sample.io(mark);
+    }
+}
@@ -0,0 +1,180 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Engine built on the incubating Vector API, processing a whole vector of the preferred species per
+ * iteration: encoding reshuffles 3 byte groups into 4 lanes, extracts the 6 bit values with per lane
+ * shifts and translates them to characters by range; decoding validates and translates every lane with
+ * a handful of comparisons before packing 4 lanes back into 3 bytes. Input shorter than a vector, padding
+ * and anything invalid fall back to the scalar {@link Base64Codec}
+ * <p>
+ * Requires {@code --add-modules jdk.incubator.vector}, {@link Base64Engine#named(String)} falls back to
+ * {@link SwarBase64Engine} when the module or a wide enough species is unavailable
+ */
+public final class VectorBase64Engine implements Base64Engine {
+
+    public static final String NAME = "vector";
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int MINIMUM_LANES = 16;
+
+    // encoding, output lane 4k + m is ((first << firstShift) & firstMask) | ((second >>> secondShift) & secondMask)
+    // where first and second are bytes of input group k
+    private static final VectorShuffle<Byte> ENCODE_FIRST = groupShuffle(4, 3, new int[] { 0, 0, 1, 2 });
+    private static final VectorShuffle<Byte> ENCODE_SECOND = groupShuffle(4, 3, new int[] { 0, 1, 2, 2 });
+    private static final ByteVector ENCODE_FIRST_SHIFT = repeating(new int[] { 0, 4, 2, 0 });
+    private static final ByteVector ENCODE_FIRST_MASK = repeating(new int[] { 0x00, 0x30, 0x3C, 0x3F });
+    private static final ByteVector ENCODE_SECOND_SHIFT = repeating(new int[] { 2, 4, 6, 0 });
+    private static final ByteVector ENCODE_SECOND_MASK = repeating(new int[] { 0x3F, 0x0F, 0x03, 0x00 });
+
+    // decoding, output lane 3k + n is (first << firstShift) | (second >>> secondShift) over 6 bit values of group k
+    private static final VectorShuffle<Byte> DECODE_FIRST = groupShuffle(3, 4, new int[] { 0, 1, 2 });
+    private static final VectorShuffle<Byte> DECODE_SECOND = groupShuffle(3, 4, new int[] { 1, 2, 3 });
+    private static final ByteVector DECODE_FIRST_SHIFT = repeating(new int[] { 2, 4, 6 });
+    private static final ByteVector DECODE_SECOND_SHIFT = repeating(new int[] { 4, 2, 0 });
+
+    /**
+     * @throws UnsupportedOperationException if the preferred species is too narrow to be worthwhile
+     */
+    public VectorBase64Engine() {
+        if (LANES < MINIMUM_LANES) {
+            throw new UnsupportedOperationException("Preferred vector species has only " + LANES + " byte lanes");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset,
+            Base64Alphabet alphabet) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int index = offset;
+        int end = offset + length;
+        int written = destinationOffset;
+        int consumed = LANES / 4 * 3;
+        byte offset62 = (byte) (alphabet.character(62) - 62);
+        byte offset63 = (byte) (alphabet.character(63) - 63);
+
+        // each load reads a full vector but only consumes 3/4 of it
+        while (end - index >= LANES && destination.length - written >= LANES) {
+            var input = ByteVector.fromArray(SPECIES, source, index);
+            var first = input.rearrange(ENCODE_FIRST)
+                .lanewise(VectorOperators.LSHL, ENCODE_FIRST_SHIFT)
+                .and(ENCODE_FIRST_MASK);
+            var second = input.rearrange(ENCODE_SECOND)
+                .lanewise(VectorOperators.LSHR, ENCODE_SECOND_SHIFT)
+                .and(ENCODE_SECOND_MASK);
+            var values = first.or(second);
+
+            var offsets = ByteVector.broadcast(SPECIES, (byte) 'A')
+                .blend((byte) ('a' - 26), values.compare(VectorOperators.GE, 26))
+                .blend((byte) ('0' - 52), values.compare(VectorOperators.GE, 52))
+                .blend(offset62, values.compare(VectorOperators.EQ, 62))
+                .blend(offset63, values.compare(VectorOperators.EQ, 63));
+            values.add(offsets).intoArray(destination, written);
+
+            index += consumed;
+            written += LANES;
+        }
+
+        return written - destinationOffset
+            + Base64Codec.encode(source, index, end - index, destination, written, alphabet.encodeTable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+        GuardAgainst.argumentBeingNull(source, "source");
+        GuardAgainst.argumentBeingNull(destination, "destination");
+
+        int index = offset;
+        int end = offset + length;
+        int written = destinationOffset;
+        int produced = LANES / 4 * 3;
+
+        // each store writes a full vector of which only 3/4 is kept; requiring a second vector of input
+        // guarantees the excess is overwritten by later output, whether from here or the scalar tail
+        while (end - index >= 2 * LANES && destination.length - written >= LANES) {
+            var characters = ByteVector.fromArray(SPECIES, source, index);
+
+            var upper = characters.compare(VectorOperators.GE, 'A').and(characters.compare(VectorOperators.LE, 'Z'));
+            var lower = characters.compare(VectorOperators.GE, 'a').and(characters.compare(VectorOperators.LE, 'z'));
+            var digit = characters.compare(VectorOperators.GE, '0').and(characters.compare(VectorOperators.LE, '9'));
+            var value62 = characters.compare(VectorOperators.EQ, '+').or(characters.compare(VectorOperators.EQ, '-'));
+            var value63 = characters.compare(VectorOperators.EQ, '/').or(characters.compare(VectorOperators.EQ, '_'));
+            if (!upper.or(lower).or(digit).or(value62).or(value63).allTrue()) {
+                break;
+            }
+
+            // the 62 and 63 characters of either alphabet are mapped straight to their value
+            var values = characters.add(ByteVector.zero(SPECIES)
+                .blend((byte) -'A', upper)
+                .blend((byte) (26 - 'a'), lower)
+                .blend((byte) (52 - '0'), digit))
+                .blend((byte) 62, value62)
+                .blend((byte) 63, value63);
+
+            var first = values.rearrange(DECODE_FIRST).lanewise(VectorOperators.LSHL, DECODE_FIRST_SHIFT);
+            var second = values.rearrange(DECODE_SECOND).lanewise(VectorOperators.LSHR, DECODE_SECOND_SHIFT);
+            first.or(second).intoArray(destination, written);
+
+            index += LANES;
+            written += produced;
+        }
+
+        return written - destinationOffset
+            + Base64Codec.decode(source, index, end - index, destination, written, index - offset);
+    }
+
+    /**
+     * shuffle placing, for every group k, element {@code pattern[m]} of the k-th source group of
+     * {@code sourceGroup} lanes into lane {@code k * targetGroup + m}; unused trailing lanes take lane 0
+     */
+    private static VectorShuffle<Byte> groupShuffle(int targetGroup, int sourceGroup, int[] pattern) {
+        var indices = new int[LANES];
+        for (int lane = 0; lane < LANES / targetGroup * targetGroup; lane++) {
+            int group = lane / targetGroup;
+            int index = group * sourceGroup + pattern[lane % targetGroup];
+            indices[lane] = index < LANES ? index : 0;
+        }
+        return VectorShuffle.fromArray(SPECIES, indices, 0);
+    }
+
+    private static ByteVector repeating(int[] pattern) {
+        var values = new byte[LANES];
+        for (int lane = 0; lane < LANES; lane++) {
+            values[lane] = (byte) pattern[lane % pattern.length];
+        }
+        return ByteVector.fromArray(SPECIES, values, 0);
+    }
+}
@@ -0,0 +1,319 @@
+//
+// Copyright © 2020 Terry Moreland
+// Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+// to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+// and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+// WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+//
+package moreland.base64.cli.internal;
+
+import java.io.IOException;
+
+/**
+ * Tracks element nesting within an XML document without building any of it, decoding the text, including
+ * CDATA sections, of elements named {@code element} and passing all other text and attribute values through
+ * a {@link TextSpanDetector}. The document is assumed to be well formed, nothing is validated beyond what
+ * locating text needs; namespaces are ignored so {@code element} matches by local name
+ */
+final class XmlSpanScanner implements SpanScanner {
+
+    private static final String COMMENT_START = "--";
+    private static final String CDATA_START = "[CDATA[";
+    private static final int MAX_ENTITY_LENGTH = 10;
+    private static final int NOT_ASCII = 0xFF;
+
+    private enum State {
+        TEXT,
+        ENTITY,
+        TAG_OPEN,
+        START_TAG_NAME,
+        ATTRIBUTES,
+        ATTRIBUTE_VALUE,
+        EMPTY_TAG,
+        END_TAG,
+        MARKUP,
+        COMMENT,
+        CDATA,
+        DECLARATION,
+        PROCESSING_INSTRUCTION
+    }
+
+    private final String element;
+    private final SpanOutput output;
+    private final TextSpanDetector detector;
+    private final StringBuilder name = new StringBuilder();
+    private State state = State.TEXT;
+    private int depth;
+    private int spanDepth = -1;
+    private int quote;
+    private int pending;
+    private int declarationNesting;
+
+    /**
+     * @param element local name of the elements whose text is decoded, null to decode only self delimiting
+     *        payloads within text and attribute values
+     * @param output receives the payloads found
+     */
+    XmlSpanScanner(String element, SpanOutput output) {
+        this.element = element;
+        this.output = output;
+        this.detector = new TextSpanDetector(output);
+    }
+
+    @Override
+    public void accept(int character, long offset) throws IOException {
+        switch (state) {
+            case TEXT -> text(character, offset);
+            case ENTITY -> entity(character, offset);
+            case TAG_OPEN -> {
+                name.setLength(0);
+                switch (character) {
+                    case '/' -> state = State.END_TAG;
+                    case '!' -> state = State.MARKUP;
+                    case '?' -> state = State.PROCESSING_INSTRUCTION;
+                    default -> {
+                        name.append((char) character);
+                        state = State.START_TAG_NAME;
+                    }
+                }
+            }
+            case START_TAG_NAME -> {
+                if (character == '>') {
+                    openElement(offset);
+                } else if (character == '/') {
+                    state = State.EMPTY_TAG;
+                } else if (Character.isWhitespace(character)) {
+                    state = State.ATTRIBUTES;
+                } else {
+                    name.append((char) character);
+                }
+            }
+            case ATTRIBUTES -> {
+                if (character == '>') {
+                    openElement(offset);
+                } else if (character == '/') {
+                    state = State.EMPTY_TAG;
+                } else if (character == '"' || character == '\'') {
+                    quote = character;
+                    state = State.ATTRIBUTE_VALUE;
+                    attributeBoundary();
+                }
+            }
+            case ATTRIBUTE_VALUE -> {
+                if (character == quote) {
+                    state = State.ATTRIBUTES;
+                    attributeBoundary();
+                } else if (spanDepth < 0) {
+                    detector.accept(character, offset);
+                }
+            }
+            case EMPTY_TAG -> state = character == '>' ? State.TEXT : State.ATTRIBUTES;
+            case END_TAG -> {
+                if (character == '>') {
+                    if (spanDepth == depth) {
+                        output.close();
+                        spanDepth = -1;
+                    }
+                    depth = Math.max(0, depth - 1);
+                    state = State.TEXT;
+                }
+            }
+            case MARKUP -> markup(character);
+            case COMMENT -> {
+                if (character == '>' && pending >= 2) {
+                    state = State.TEXT;
+                }
+                pending = character == '-' ? pending + 1 : 0;
+            }
+            case CDATA -> cdata(character, offset);
+            case DECLARATION -> {
+                if (character == '[') {
+                    declarationNesting++;
+                } else if (character == ']') {
+                    declarationNesting--;
+                } else if (character == '>' && declarationNesting <= 0) {
+                    state = State.TEXT;
+                }
+            }
+            case PROCESSING_INSTRUCTION -> {
+                if (character == '>' && pending == '?') {
+                    state = State.TEXT;
+                }
+                pending = character;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Text of a selected element up to its next tag or entity goes to the output as one run
+     */
+    @Override
+    public void accept(byte[] buffer, int offset, int length, long position) throws IOException {
+        int end = offset + length;
+        int index = offset;
+        while (index < end) {
+            if (spanDepth >= 0 && state == State.TEXT) {
+                int run = index;
+                while (run < end && buffer[run] != '<' && buffer[run] != '&') {
+                    run++;
+                }
+                output.write(buffer, index, run - index);
+                index = run;
+                if (index == end) {
+                    break;
+                }
+            }
+            accept(buffer[index] & 0xFF, position + (index - offset));
+            index++;
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (spanDepth >= 0) {
+            output.fail("unterminated element <" + element + ">");
+            output.close();
+            spanDepth = -1;
+        }
+        detector.finish();
+    }
+
+    private void text(int character, long offset) throws IOException {
+        if (character == '<') {
+            if (spanDepth < 0) {
+                detector.boundary();
+            }
+            state = State.TAG_OPEN;
+        } else if (character == '&') {
+            name.setLength(0);
+            state = State.ENTITY;
+        } else {
+            emit(character, offset);
+        }
+    }
+
+    private void entity(int character, long offset) throws IOException {
+        if (character == ';') {
+            state = State.TEXT;
+            emit(resolveEntity(name.toString()), offset);
+        } else if (name.length() >= MAX_ENTITY_LENGTH || character == '<' || character == '&' || Character.isWhitespace(character)) {
+            state = State.TEXT;
+            emit(NOT_ASCII, offset);
+            text(character, offset);
+        } else {
+            name.append((char) character);
+        }
+    }
+
+    private void markup(int character) {
+        name.append((char) character);
+        var text = name.toString();
+        if (text.equals(COMMENT_START)) {
+            pending = 0;
+            state = State.COMMENT;
+        } else if (text.equals(CDATA_START)) {
+            pending = 0;
+            state = State.CDATA;
+        } else if (!COMMENT_START.startsWith(text) && !CDATA_START.startsWith(text)) {
+            declarationNesting = 0;
+            state = State.DECLARATION;
+            startDeclaration(character);
+        }
+    }
+
+    /**
+     * the characters read before a declaration was recognised only matter for nesting and its end
+     */
+    private void startDeclaration(int character) {
+        if (character == '[') {
+            declarationNesting++;
+        } else if (character == '>') {
+            state = State.TEXT;
+        }
+    }
+
+    /**
+     * CDATA text is passed on as is, {@code pending} counts {@code ]} held back in case they start {@code ]]>}
+     */
+    private void cdata(int character, long offset) throws IOException {
+        if (character == ']') {
+            pending++;
+            return;
+        }
+        if (character == '>' && pending >= 2) {
+            for (int i = 2; i < pending; i++) {
+                emit(']', offset);
+            }
+            pending = 0;
+            state = State.TEXT;
+            return;
+        }
+        for (int i = 0; i < pending; i++) {
+            emit(']', offset);
+        }
+        pending = 0;
+        emit(character, offset);
+    }
+
+    private void openElement(long offset) throws IOException {
+        depth++;
+        state = State.TEXT;
+        if (spanDepth < 0 && element != null && matches(name)) {
+            output.open("xml <" + name + ">", "bin", offset + 1);
+            spanDepth = depth;
+        }
+    }
+
+    private boolean matches(CharSequence qualifiedName) {
+        var text = qualifiedName.toString();
+        int colon = text.indexOf(':');
+        return text.equals(element) || (colon >= 0 && text.substring(colon + 1).equals(element));
+    }
+
+    private void attributeBoundary() throws IOException {
+        if (spanDepth < 0) {
+            detector.boundary();
+        }
+    }
+
+    private void emit(int character, long offset) throws IOException {
+        if (spanDepth >= 0) {
+            output.write(character);
+        } else {
+            detector.accept(character, offset);
+        }
+    }
+
+    private static int resolveEntity(String entity) {
+        int value = switch (entity) {
+            case "lt" -> '<';
+            case "gt" -> '>';
+            case "amp" -> '&';
+            case "quot" -> '"';
+            case "apos" -> '\'';
+            default -> numericEntity(entity);
+        };
+        return value >= 0 && value < 0x80 ? value : NOT_ASCII;
+    }
+
+    private static int numericEntity(String entity) {
+        try {
+            if (entity.startsWith("#x") || entity.startsWith("#X")) {
+                return Integer.parseInt(entity.substring(2), 16);
+            }
+            if (entity.startsWith("#")) {
+                return Integer.parseInt(entity.substring(1));
+            }
+        } catch (NumberFormatException e) {
+            // falls through to report it as not ASCII, which ends any payload
+        }
+        return NOT_ASCII;
+    }
+}
@@ -0,0 +1,354 @@
+package moreland.base64.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import moreland.base64.cli.internal.Base64Alphabet;
+import moreland.base64.cli.internal.Base64Codec;
+import moreland.base64.cli.internal.Base64Engine;
+import moreland.base64.cli.internal.Base64FormatException;
+import moreland.base64.cli.internal.Base64Variant;
+import moreland.base64.cli.internal.Compression;
+import moreland.base64.cli.internal.JdkBase64Engine;
+import moreland.base64.cli.internal.ParallelDeflaterOutputStream;
+import moreland.base64.cli.internal.ScalarBase64Engine;
+import moreland.base64.cli.internal.SwarBase64Engine;
+import moreland.base64.cli.internal.VectorBase64Engine;
+
+class Base64EncoderServiceTests {
+
+	private final Base64EncoderService encoderService = new Base64EncoderService();
+
+	@Test
+	void encodeStreamMatchesJdkWhenReadsAreShort() {
+		var source = randomBytes(10_000);
+		var encoded = new ByteArrayOutputStream();
+
+		assertTrue(encoderService.encode(new TricklingInputStream(source), encoded));
+		assertArrayEquals(Base64.getEncoder().encode(source), encoded.toByteArray());
+	}
+
+	@Test
+	void decodeStreamHandlesSplitGroupsAndLineBreaks() {
+		var source = randomBytes(10_000);
+		var decoded = new ByteArrayOutputStream();
+
+		assertTrue(encoderService.decode(new TricklingInputStream(Base64.getMimeEncoder().encode(source)), decoded));
+		assertArrayEquals(source, decoded.toByteArray());
+	}
+
+	@Test
+	void decodeStreamRejectsWhitespaceWhenConfigured() {
+		var strictEncoderService = new Base64EncoderService(false);
+
+		assertFalse(strictEncoderService.decode(new ByteArrayInputStream("QUJD\nQUJD".getBytes()), new ByteArrayOutputStream()));
+	}
+
+	@Test
+	void decodeStreamRejectsDataAfterPadding() {
+		assertFalse(encoderService.decode(new ByteArrayInputStream("QQ==QQ==".getBytes()), new ByteArrayOutputStream()));
+	}
+
+	@Test
+	void encodeAndDecodeIntoCallerBuffersRoundTrip() {
+		var source = randomBytes(1_000);
+		var encoded = new byte[encoderService.encodedLength(source.length - 1) + 2];
+		var decoded = new byte[source.length + 2];
+
+		int encodedCount = encoderService.encode(source, 1, source.length - 1, encoded, 2);
+		assertEquals(encoded.length - 2, encodedCount);
+		assertEquals(source.length - 1, encoderService.decodedLength(encoded, 2, encodedCount));
+
+		int decodedCount = encoderService.decode(encoded, 2, encodedCount, decoded, 2);
+		assertEquals(source.length - 1, decodedCount);
+		assertArrayEquals(Arrays.copyOfRange(source, 1, source.length), Arrays.copyOfRange(decoded, 2, 2 + decodedCount));
+	}
+
+	@Test
+	void encodeDirectBufferReportsOverflowUntilDestinationHasRoom() {
+		var source = ByteBuffer.allocateDirect(5).put(randomBytes(5)).flip();
+		var destination = ByteBuffer.allocateDirect(4);
+
+		assertTrue(encoderService.encode(source, destination).isOverflow());
+		assertEquals(2, source.remaining());
+
+		destination = ByteBuffer.allocateDirect(4);
+		assertTrue(encoderService.encode(source, destination).isUnderflow());
+		assertEquals(0, source.remaining());
+	}
+
+	@Test
+	void decodeBufferKeepsPaddedGroupUntilEndOfInput() {
+		var first = ByteBuffer.wrap("QQ==".getBytes(StandardCharsets.US_ASCII));
+		var destination = ByteBuffer.allocate(16);
+
+		assertTrue(encoderService.decode(first, destination, false).isUnderflow());
+		assertEquals(4, first.remaining());
+		assertEquals(0, destination.position());
+
+		// as with a CharsetDecoder the unconsumed group is carried ahead of the next input, which can't follow padding
+		var second = ByteBuffer.allocate(8).put(first).put("QUJD".getBytes(StandardCharsets.US_ASCII)).flip();
+		assertTrue(encoderService.decode(second, destination, false).isMalformed());
+		assertEquals(0, second.position());
+		assertEquals(0, destination.position());
+
+		var last = ByteBuffer.wrap("QUJDQQ==".getBytes(StandardCharsets.US_ASCII));
+		assertTrue(encoderService.decode(last, destination, true).isUnderflow());
+		assertFalse(last.hasRemaining());
+		assertArrayEquals("ABCA".getBytes(StandardCharsets.US_ASCII), Arrays.copyOf(destination.array(), destination.position()));
+	}
+
+	@Test
+	void encodingProcessorCarriesGroupsAcrossItemsAndHonoursChunkSize() throws Exception {
+		var source = randomBytes(1_000);
+		var processor = encoderService.encodingProcessor(10);
+		var subscriber = new CollectingSubscriber(10);
+
+		try (var publisher = new SubmissionPublisher<ByteBuffer>()) {
+			processor.subscribe(subscriber);
+			publisher.subscribe(processor);
+			for (int offset = 0; offset < source.length; offset += 7) {
+				publisher.submit(ByteBuffer.wrap(source, offset, Math.min(7, source.length - offset)));
+			}
+		}
+
+		assertArrayEquals(Base64.getEncoder().encode(source), subscriber.result.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void encodeStreamWrapsLinesAndUsesUrlSafeAlphabetInSinglePass() {
+		var source = randomBytes(10_000);
+		var mimeUrlSafe = new Base64EncoderService(true, new ScalarBase64Engine(),
+			new Base64Variant(Base64Alphabet.URL_SAFE, false, Base64Variant.MIME_LINE_LENGTH, Base64Variant.CRLF));
+		var encoded = new ByteArrayOutputStream();
+
+		assertTrue(mimeUrlSafe.encode(new TricklingInputStream(source), encoded));
+		var expected = Base64.getMimeEncoder().withoutPadding().encodeToString(source).replace('+', '-').replace('/', '_');
+		assertEquals(expected, encoded.toString(StandardCharsets.US_ASCII));
+		assertEquals(expected.length(), mimeUrlSafe.encodedLength(source.length));
+		assertArrayEquals(source, encoderService.decode(new ByteArrayInputStream(encoded.toByteArray())));
+	}
+
+	@Test
+	void encodeStreamWithGzipProducesOneStreamAcrossParallelBlocks() throws Exception {
+		var source = new StringBuilder();
+		for (int line = 0; source.length() < 3 * ParallelDeflaterOutputStream.BLOCK_SIZE + 100; line++) {
+			source.append(line).append(" INFO request completed in ").append(line % 97).append(" ms\n");
+		}
+		var text = source.toString().getBytes(StandardCharsets.US_ASCII);
+		var encoded = new ByteArrayOutputStream();
+
+		assertTrue(encoderService.encode(new ByteArrayInputStream(text), encoded, Compression.GZIP));
+		try (var gzip = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded.toByteArray())))) {
+			assertArrayEquals(text, gzip.readAllBytes());
+		}
+		assertTrue(encoded.size() < text.length / 3);
+
+		var decoded = new ByteArrayOutputStream();
+		assertTrue(encoderService.decode(new TricklingInputStream(encoded.toByteArray()), decoded, Compression.GZIP));
+		assertArrayEquals(text, decoded.toByteArray());
+	}
+
+	@Test
+	void validateReportsDecodedLengthOrOffsetOfFirstError() {
+		var encoded = Base64.getMimeEncoder().encode(randomBytes(1_000));
+
+		var valid = encoderService.validate(new TricklingInputStream(encoded)).orElseThrow();
+		assertTrue(valid.valid());
+		assertEquals(1_000, valid.decodedLength());
+
+		encoded[500] = '*';
+		var invalid = encoderService.validate(new TricklingInputStream(encoded)).orElseThrow();
+		assertFalse(invalid.valid());
+		assertEquals(500, invalid.errorOffset());
+
+		var truncated = encoderService.validate(new ByteArrayInputStream("QUJDQ".getBytes())).orElseThrow();
+		assertFalse(truncated.valid());
+		assertEquals(5, truncated.errorOffset());
+	}
+
+	@Test
+	void characterPathsMatchJdkWithoutPlatformCharset() {
+		for (int length : new int[] { 0, 1, 2, 3, 100, 5_000 }) {
+			var source = randomBytes(length);
+			var expected = Base64.getEncoder().encodeToString(source);
+
+			assertEquals(expected, encoderService.encodeToString(source));
+			assertArrayEquals(source, encoderService.decode(new StringBuilder(expected)));
+			var chars = ("[" + expected + "]").toCharArray();
+			assertArrayEquals(source, encoderService.decode(chars, 1, chars.length - 2));
+		}
+		assertArrayEquals(new byte[] { 'A', 'B' }, encoderService.decode("QUI".toCharArray(), 0, 3));
+
+		var text = "caf\u00e9 \u2603";
+		assertEquals(Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_16BE)),
+			encoderService.encode(text, StandardCharsets.UTF_16BE));
+		assertEquals(text, encoderService.decodeToString(encoderService.encode(text, StandardCharsets.UTF_16BE), StandardCharsets.UTF_16BE));
+		assertEquals(text, encoderService.decodeToString(encoderService.encode(text)));
+
+		assertEquals(4, assertThrows(Base64FormatException.class, () -> encoderService.decode(new StringBuilder("QUJD\u0141UJD"))).offset());
+		assertEquals(4, assertThrows(Base64FormatException.class, () -> encoderService.decode("QUJD*UJD".toCharArray(), 0, 8)).offset());
+		assertEquals(5, assertThrows(Base64FormatException.class, () -> encoderService.decode("QUJDQ")).offset());
+		assertEquals(1, assertThrows(Base64FormatException.class, () -> encoderService.decode(new StringBuilder("Q=Q="))).offset());
+	}
+
+	@Test
+	void decodeStringUsesConfiguredEngine() {
+		var jdkEncoderService = new Base64EncoderService(true, new JdkBase64Engine());
+
+		// only the jdk engine rejects input mixing the standard and url safe alphabets
+		assertArrayEquals(encoderService.decode(new StringBuilder("ab-+")), encoderService.decode("ab-+"));
+		assertEquals(3, assertThrows(Base64FormatException.class, () -> jdkEncoderService.decode("ab-+")).offset());
+		assertEquals(4, assertThrows(Base64FormatException.class, () -> jdkEncoderService.decode("QUJD*UJD")).offset());
+	}
+
+	@Test
+	void scalarJdkAndSwarEnginesMatchJdk() {
+		for (var engine : new Base64Engine[] { new ScalarBase64Engine(), new JdkBase64Engine(), new SwarBase64Engine() }) {
+			assertEngineMatchesJdk(engine);
+		}
+	}
+
+	@Test
+	void vectorEngineMatchesJdk() {
+		// falls back to swar where the preferred species is too narrow, so the vector paths are covered where they run
+		assertEngineMatchesJdk(Base64Engine.named(VectorBase64Engine.NAME));
+	}
+
+	/**
+	 * encodes and decodes every length up to a few blocks, and some larger ones, at non zero offsets in both alphabets and
+	 * checks that an invalid character anywhere in the input is reported at its offset
+	 */
+	private static void assertEngineMatchesJdk(Base64Engine engine) {
+		var lengths = IntStream.concat(IntStream.rangeClosed(0, 100), IntStream.of(1_000, 4_095, 4_096, 4_097, 10_000)).toArray();
+
+		for (int length : lengths) {
+			var source = randomBytes(length + 3);
+			for (var alphabet : Base64Alphabet.values()) {
+				var jdkEncoder = alphabet == Base64Alphabet.URL_SAFE ? Base64.getUrlEncoder() : Base64.getEncoder();
+				var expected = jdkEncoder.encode(Arrays.copyOfRange(source, 3, source.length));
+				var encoded = new byte[5 + Base64Codec.encodedLength(length)];
+
+				assertEquals(expected.length, engine.encode(source, 3, length, encoded, 5, alphabet), engine.name());
+				assertArrayEquals(expected, Arrays.copyOfRange(encoded, 5, encoded.length));
+
+				var unpadded = jdkEncoder.withoutPadding().encode(Arrays.copyOfRange(source, 3, source.length));
+				for (var input : new byte[][] { encoded, prefixed(unpadded, 5) }) {
+					var decoded = new byte[2 + length];
+					assertEquals(length, engine.decode(input, 5, input.length - 5, decoded, 2), engine.name());
+					assertArrayEquals(Arrays.copyOfRange(source, 3, source.length), Arrays.copyOfRange(decoded, 2, decoded.length));
+				}
+			}
+		}
+
+		var valid = Base64.getEncoder().encode(randomBytes(100));
+		for (int offset : new int[] { 0, 1, 7, 8, 15, 16, 17, 63, 64, 100, valid.length - 3 }) {
+			var invalid = prefixed(valid, 5);
+			invalid[5 + offset] = '*';
+			var exception = assertThrows(Base64FormatException.class,
+				() -> engine.decode(invalid, 5, valid.length, new byte[100], 0));
+			assertEquals(offset, exception.offset(), engine.name());
+		}
+	}
+
+	private static byte[] prefixed(byte[] source, int prefixLength) {
+		var result = new byte[prefixLength + source.length];
+		System.arraycopy(source, 0, result, prefixLength, source.length);
+		return result;
+	}
+
+	private static byte[] randomBytes(int length) {
+		var bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * requests one buffer at a time and fails if any is larger than {@code chunkSize}
+	 */
+	private static class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+		private final ByteArrayOutputStream collected = new ByteArrayOutputStream();
+		private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+		private final int chunkSize;
+		private Flow.Subscription subscription;
+
+		CollectingSubscriber(int chunkSize) {
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(ByteBuffer item) {
+			if (item.remaining() > chunkSize) {
+				result.completeExceptionally(new AssertionError("chunk of " + item.remaining() + " bytes"));
+			}
+			var bytes = new byte[item.remaining()];
+			item.get(bytes);
+			collected.writeBytes(bytes);
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			result.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			result.complete(collected.toByteArray());
+		}
+	}
+
+	/**
+	 * returns at most 7 bytes per read to mimic a pipe or socket
+	 */
+	private static class TricklingInputStream extends InputStream {
+		private final byte[] source;
+		private int position;
+
+		TricklingInputStream(byte[] source) {
+			this.source = source;
+		}
+
+		@Override
+		public int read() {
+			return position < source.length ? source[position++] & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) {
+			if (position >= source.length) {
+				return -1;
+			}
+			int count = Math.min(Math.min(length, 7), source.length - position);
+			System.arraycopy(source, position, buffer, offset, count);
+			position += count;
+			return count;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package moreland.base64.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CachingFileEncoderServiceTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void overwritingHardLinkedOutputLeavesCacheEntryIntact() throws Exception {
+		var service = new CachingFileEncoderService(new SimpleFileEncoderService(new Base64EncoderService()),
+			directory.resolve("cache").toString(), CachingFileEncoderService.DEFAULT_MAX_SIZE, false, true);
+		var a = Files.writeString(directory.resolve("a"), "aaaaaa").toFile();
+		var b = Files.writeString(directory.resolve("b"), "bbbbbb").toFile();
+		var out = directory.resolve("out").toFile();
+		var out2 = directory.resolve("out2").toFile();
+
+		assertTrue(service.encode(a, out));
+		assertTrue(service.encode(a, out));
+		assertTrue(service.encode(b, out));
+		assertTrue(service.encode(a, out2));
+
+		assertEquals(encoded("bbbbbb"), Files.readString(out.toPath(), StandardCharsets.US_ASCII));
+		assertEquals(encoded("aaaaaa"), Files.readString(out2.toPath(), StandardCharsets.US_ASCII));
+	}
+
+	@Test
+	void encodingStreamOverHardLinkedOutputLeavesCacheEntryIntact() throws Exception {
+		var fileEncoderService = new SimpleFileEncoderService(new Base64EncoderService());
+		var service = new CachingFileEncoderService(fileEncoderService,
+			directory.resolve("cache").toString(), CachingFileEncoderService.DEFAULT_MAX_SIZE, false, true);
+		var a = Files.writeString(directory.resolve("a"), "aaaaaa").toFile();
+		var out = directory.resolve("out").toFile();
+
+		assertTrue(service.encode(a, out));
+		assertTrue(service.encode(a, out));
+		assertTrue(service.encode(new ByteArrayInputStream("cccccc".getBytes(StandardCharsets.US_ASCII)), out));
+		assertTrue(fileEncoderService.encodeIncremental(Files.writeString(directory.resolve("d"), "dddddd").toFile(), out));
+		assertTrue(service.encode(a, out));
+
+		assertEquals(encoded("aaaaaa"), Files.readString(out.toPath(), StandardCharsets.US_ASCII));
+	}
+
+	private static String encoded(String text) {
+		return Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.US_ASCII));
+	}
+}
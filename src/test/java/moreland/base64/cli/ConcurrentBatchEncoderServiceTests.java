@@ -0,0 +1,61 @@
+package moreland.base64.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConcurrentBatchEncoderServiceTests {
+
+	@TempDir
+	Path directory;
+
+	private final ConcurrentBatchEncoderService batchEncoderService =
+		new ConcurrentBatchEncoderService(new SimpleFileEncoderService(new Base64EncoderService()), 3);
+
+	@Test
+	void missingInputFailsAloneAndResultsKeepInputOrder() throws Exception {
+		// the first input is the largest so later ones usually finish before it
+		var large = randomBytes(2_000_000);
+		var small = randomBytes(100);
+		var inputs = List.of(
+			Files.write(directory.resolve("large"), large),
+			directory.resolve("missing"),
+			Files.write(directory.resolve("small"), small));
+		var encodedDirectory = directory.resolve("encoded");
+
+		var encoded = batchEncoderService.encode(inputs, encodedDirectory);
+
+		assertEquals(inputs, encoded.stream().map(BatchEncoderService.Result::input).toList());
+		assertEquals(List.of(true, false, true), encoded.stream().map(BatchEncoderService.Result::success).toList());
+		assertEquals(encodedDirectory.resolve("large.b64"), encoded.get(0).output());
+		assertEquals(large.length, encoded.get(0).inputSize());
+		assertArrayEquals(Base64.getEncoder().encode(large), Files.readAllBytes(encodedDirectory.resolve("large.b64")));
+		assertArrayEquals(Base64.getEncoder().encode(small), Files.readAllBytes(encodedDirectory.resolve("small.b64")));
+		assertFalse(Files.exists(encodedDirectory.resolve("missing.b64")));
+
+		var decodedDirectory = directory.resolve("decoded");
+		var decoded = batchEncoderService.decode(
+			List.of(encoded.get(0).output(), encodedDirectory.resolve("missing.b64"), encoded.get(2).output()), decodedDirectory);
+
+		assertEquals(List.of(true, false, true), decoded.stream().map(BatchEncoderService.Result::success).toList());
+		assertArrayEquals(large, Files.readAllBytes(decodedDirectory.resolve("large")));
+		assertArrayEquals(small, Files.readAllBytes(decodedDirectory.resolve("small")));
+		assertTrue(decoded.stream().allMatch(result -> result.output().getParent().equals(decodedDirectory)));
+	}
+
+	private static byte[] randomBytes(int length) {
+		var bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+}
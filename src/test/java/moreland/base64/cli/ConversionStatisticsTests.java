@@ -0,0 +1,126 @@
+package moreland.base64.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import moreland.base64.cli.internal.Compression;
+import moreland.base64.cli.internal.ConversionStatistics;
+
+class ConversionStatisticsTests {
+
+	private static final long READ_DELAY_MILLIS = 20;
+
+	private final EncoderService encoderService = new Base64EncoderService();
+	private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+	@Test
+	void encodeAndFailingDecodeAreCountedAndPublished() throws Exception {
+		ConversionStatistics.registerMBeans();
+		var encode = operation("encode.stream");
+		var decode = operation("decode.stream");
+		long encodeCalls = counter(encode, "Calls");
+		long encodeFailures = counter(encode, "Failures");
+		long encodeBytesIn = counter(encode, "BytesIn");
+		long encodeBytesOut = counter(encode, "BytesOut");
+		long decodeCalls = counter(decode, "Calls");
+		long decodeFailures = counter(decode, "Failures");
+
+		var source = randomBytes(100_000);
+		var encoded = new ByteArrayOutputStream();
+		assertTrue(encoderService.encode(new ByteArrayInputStream(source), encoded));
+		assertFalse(encoderService.decode(new ByteArrayInputStream("QUJD*UJD".getBytes(StandardCharsets.US_ASCII)),
+			new ByteArrayOutputStream()));
+
+		assertEquals(encodeCalls + 1, counter(encode, "Calls"));
+		assertEquals(encodeFailures, counter(encode, "Failures"));
+		assertEquals(encodeBytesIn + source.length, counter(encode, "BytesIn"));
+		assertEquals(encodeBytesOut + encoded.size(), counter(encode, "BytesOut"));
+		assertEquals(decodeCalls + 1, counter(decode, "Calls"));
+		assertEquals(decodeFailures + 1, counter(decode, "Failures"));
+
+		var summary = ConversionStatistics.summary();
+		assertTrue(summary.lines().anyMatch(line -> line.startsWith("encode.stream ")), summary);
+		assertTrue(summary.lines().anyMatch(line -> line.startsWith("decode.stream ")), summary);
+		assertTrue(summary.contains("scratch buffers: "), summary);
+
+		var buffers = new ObjectName("moreland.base64:type=ConversionStatistics");
+		assertTrue(Arrays.asList((String[]) server.getAttribute(buffers, "Operations")).contains("decode.stream"));
+		// the encode and decode above ran on this thread, so the decode reused the encode's buffers
+		long acquisitions = (Long) server.getAttribute(buffers, "ScratchBufferAcquisitions");
+		long allocations = (Long) server.getAttribute(buffers, "ScratchBufferAllocations");
+		assertTrue(acquisitions > allocations, acquisitions + " <= " + allocations);
+		assertTrue((Double) server.getAttribute(buffers, "ScratchBufferHitRate") > 0);
+	}
+
+	@Test
+	void compressedPassesChargeSlowStreamsToIo() throws Exception {
+		ConversionStatistics.registerMBeans();
+		var source = randomBytes(200_000);
+
+		var encoded = new ByteArrayOutputStream();
+		var encodeIo = counter(operation("encode.stream.gzip"), "IoMillis");
+		assertTrue(encoderService.encode(new SlowInputStream(source), encoded, Compression.GZIP));
+		assertTrue(counter(operation("encode.stream.gzip"), "IoMillis") - encodeIo >= READ_DELAY_MILLIS);
+
+		var decoded = new ByteArrayOutputStream();
+		var decodeIo = counter(operation("decode.stream.gzip"), "IoMillis");
+		assertTrue(encoderService.decode(new SlowInputStream(encoded.toByteArray()), decoded, Compression.GZIP));
+		assertTrue(counter(operation("decode.stream.gzip"), "IoMillis") - decodeIo >= READ_DELAY_MILLIS);
+
+		assertArrayEquals(source, decoded.toByteArray());
+	}
+
+	private static ObjectName operation(String name) throws Exception {
+		return new ObjectName("moreland.base64:type=Operation,name=" + ObjectName.quote(name));
+	}
+
+	/**
+	 * @return the attribute's value, 0 if the operation has not been published yet
+	 */
+	private long counter(ObjectName operation, String attribute) throws Exception {
+		return server.isRegistered(operation) ? (Long) server.getAttribute(operation, attribute) : 0;
+	}
+
+	private static byte[] randomBytes(int length) {
+		var bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Waits before every read, standing in for a slow disk or network
+	 */
+	private static final class SlowInputStream extends FilterInputStream {
+
+		SlowInputStream(byte[] source) {
+			super(new ByteArrayInputStream(source));
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			try {
+				Thread.sleep(READ_DELAY_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+			return super.read(buffer, offset, length);
+		}
+	}
+}
@@ -0,0 +1,285 @@
+package moreland.base64.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import moreland.base64.cli.internal.Base64Alphabet;
+import moreland.base64.cli.internal.Base64Engine;
+import moreland.base64.cli.internal.Base64Variant;
+import moreland.base64.cli.internal.ScalarBase64Engine;
+import moreland.base64.cli.internal.VectorBase64Engine;
+
+class SimpleFileEncoderServiceTests {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleFileEncoderService fileEncoderService = new SimpleFileEncoderService(new Base64EncoderService());
+
+	@Test
+	void decodeRangeReadsUnwrappedAndWrappedFiles() throws Exception {
+		var source = randomBytes(300_000);
+		var unwrapped = write("unwrapped.b64", Base64.getEncoder().encode(source));
+		var wrapped = write("wrapped.b64", Base64.getMimeEncoder().encode(source));
+
+		for (var file : new File[] { unwrapped, wrapped }) {
+			assertArrayEquals(Arrays.copyOfRange(source, 0, 10), fileEncoderService.decodeRange(file, 0, 10).orElseThrow());
+			assertArrayEquals(Arrays.copyOfRange(source, 123_457, 223_457), fileEncoderService.decodeRange(file, 123_457, 100_000).orElseThrow());
+			assertArrayEquals(Arrays.copyOfRange(source, 299_990, 300_000), fileEncoderService.decodeRange(file, 299_990, 100).orElseThrow());
+			assertArrayEquals(new byte[0], fileEncoderService.decodeRange(file, 400_000, 100).orElseThrow());
+		}
+	}
+
+	@Test
+	void decodeRangeReadsFileWrappedOnlyAfterItsProbedStart() throws Exception {
+		var head = randomBytes(1_125_000);
+		var tail = randomBytes(675_000);
+		var encoded = (Base64.getEncoder().encodeToString(head) + Base64.getMimeEncoder().encodeToString(tail))
+			.getBytes(StandardCharsets.US_ASCII);
+		var file = write("late-wrapped.b64", encoded);
+		var source = new byte[head.length + tail.length];
+		System.arraycopy(head, 0, source, 0, head.length);
+		System.arraycopy(tail, 0, source, head.length, tail.length);
+
+		assertArrayEquals(Arrays.copyOfRange(source, 10, 110),
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> fileEncoderService.decodeRange(file, 10, 100).orElseThrow()));
+		assertArrayEquals(Arrays.copyOfRange(source, 1_799_900, 1_800_000),
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> fileEncoderService.decodeRange(file, 1_799_900, 100).orElseThrow()));
+		assertArrayEquals(Arrays.copyOfRange(source, 1_799_990, 1_800_000),
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> fileEncoderService.decodeRange(file, 1_799_990, 100).orElseThrow()));
+	}
+
+	@Test
+	void mappedWindowsMatchJdkForEveryVariantAcrossWindowBoundaries() throws Exception {
+		for (var variant : Variant.values()) {
+			var service = new SimpleFileEncoderService(variant.encoderService(), 0, -1, 0, 0, 3 * 1000, 4 * 777 + 1);
+
+			for (int length : new int[] { 0, 1, 2, 2_999, 3_000, 3_001, 9_000, 10_000 }) {
+				assertConvertsLikeJdk(service, variant, length);
+			}
+		}
+	}
+
+	@Test
+	void mappedDecodeReportsInvalidInputInLaterWindow() throws Exception {
+		var service = new SimpleFileEncoderService(new Base64EncoderService(), 0, -1, 0, 0, 3 * 1000, 4 * 777 + 1);
+		var encoded = Base64.getEncoder().encode(randomBytes(9_000));
+		encoded[5_000] = '*';
+
+		assertFalse(service.decode(write("invalid.b64", encoded), directory.resolve("invalid.bin").toFile()));
+		assertFalse(service.decode(write("truncated.b64", "QUJDQ".getBytes(StandardCharsets.US_ASCII)), directory.resolve("truncated.bin").toFile()));
+	}
+
+	@Test
+	void parallelEncodeMatchesJdkForEveryVariantAcrossSegmentBoundaries() throws Exception {
+		for (var variant : Variant.values()) {
+			var service = new SimpleFileEncoderService(variant.encoderService(), -1, 0, 0, 0, 3 * 1000, 4 * 777 + 1);
+
+			for (int length : new int[] { 1, 2_999, 3_000, 3_001, 9_000, 57 * 100 + 1, 20_000 }) {
+				assertConvertsLikeJdk(service, variant, length);
+			}
+		}
+	}
+
+	@Test
+	void parallelDecodeAlignsSegmentsInWrappedAndUnpaddedInput() throws Exception {
+		var service = new SimpleFileEncoderService(new Base64EncoderService(), -1, 0, 0, 0, 3 * 1000, 4 * 777 + 1);
+		var source = randomBytes(20_000);
+		var inputs = new byte[][] {
+			Base64.getMimeEncoder(76, new byte[] { '\n' }).encode(source),
+			Base64.getMimeEncoder(50, new byte[] { '\r', '\n' }).encode(source),
+			Base64.getEncoder().withoutPadding().encode(Arrays.copyOf(source, 19_999))
+		};
+
+		for (int i = 0; i < inputs.length; i++) {
+			var decoded = directory.resolve("decoded." + i).toFile();
+
+			assertTrue(service.decode(write("encoded." + i, inputs[i]), decoded));
+			assertArrayEquals(Arrays.copyOf(source, i == 2 ? 19_999 : 20_000), Files.readAllBytes(decoded.toPath()));
+		}
+	}
+
+	@Test
+	void parallelDecodeReportsInvalidInputInLaterSegment() throws Exception {
+		var service = new SimpleFileEncoderService(new Base64EncoderService(), -1, 0, 0, 0, 3 * 1000, 4 * 777 + 1);
+		var encoded = Base64.getEncoder().encode(randomBytes(20_000));
+		var truncated = Arrays.copyOf(encoded, encoded.length - 3);
+		encoded[15_000] = '*';
+
+		assertFalse(service.decode(write("invalid.b64", encoded), directory.resolve("invalid.bin").toFile()));
+		assertFalse(service.decode(write("truncated.b64", truncated), directory.resolve("truncated.bin").toFile()));
+	}
+
+	@Test
+	void encodeIncrementalAfterAppendMatchesFullEncode() throws Exception {
+		for (var variant : Variant.values()) {
+			var service = new SimpleFileEncoderService(variant.encoderService(), -1, -1, 0, 0, 3 * 100, 4 * 777 + 1);
+			var source = randomBytes(5_000);
+			var input = directory.resolve(variant + ".log");
+			var output = directory.resolve(variant + ".b64").toFile();
+			Files.write(input, new byte[0]);
+
+			// appends leave partial groups, end exactly on a line and cross several windows in one run
+			for (int length : new int[] { 0, 1, 2, 57 * 10, 1_000, 1_001, 5_000 }) {
+				Files.write(input, Arrays.copyOf(source, length));
+
+				assertTrue(service.encodeIncremental(input.toFile(), output), variant + "." + length);
+				assertArrayEquals(variant.jdkEncoder.encode(Arrays.copyOf(source, length)), Files.readAllBytes(output.toPath()));
+			}
+
+			var replaced = randomBytes(4_999);
+			Files.write(input, replaced);
+			assertTrue(service.encodeIncremental(input.toFile(), output));
+			assertArrayEquals(variant.jdkEncoder.encode(replaced), Files.readAllBytes(output.toPath()));
+		}
+	}
+
+	@Test
+	void pipelinedConversionsWithTinyBuffersMatchJdk() throws Exception {
+		for (var variant : Variant.values()) {
+			for (int bufferSize : new int[] { 4, 1_000 }) {
+				var service = new SimpleFileEncoderService(variant.encoderService(), -1, -1, 3, bufferSize);
+
+				for (int length : new int[] { 0, 1, 4, 1_000, 1_001, 20_000 }) {
+					assertConvertsLikeJdk(service, variant, length);
+				}
+			}
+		}
+	}
+
+	@Test
+	void pipelinedDecodeHandlesLinesSplitAcrossBuffersAndReportsInvalidInput() throws Exception {
+		var service = new SimpleFileEncoderService(new Base64EncoderService(), -1, -1, 3, 5);
+		var source = randomBytes(5_000);
+		var decoded = directory.resolve("wrapped.bin").toFile();
+
+		assertTrue(service.decode(write("wrapped.b64", Base64.getMimeEncoder(50, new byte[] { '\n' }).encode(source)), decoded));
+		assertArrayEquals(source, Files.readAllBytes(decoded.toPath()));
+
+		var invalid = Base64.getEncoder().encode(source);
+		invalid[4_000] = '*';
+		assertFalse(service.decode(write("invalid.b64", invalid), directory.resolve("invalid.bin").toFile()));
+	}
+
+	@Test
+	void streamAndFileDecodesOnVectorEngineRecoverWhatJdkEncoded() throws Exception {
+		var engine = new CountingEngine(Base64Engine.named(VectorBase64Engine.NAME));
+		var encoderService = new Base64EncoderService(true, engine);
+		var source = randomBytes(200_000);
+		var inputs = new byte[][] {
+			Base64.getEncoder().encode(source),
+			Base64.getMimeEncoder().encode(source),
+			Base64.getMimeEncoder(50, new byte[] { '\n' }).encode(source),
+			Base64.getUrlEncoder().withoutPadding().encode(source)
+		};
+		var services = new SimpleFileEncoderService[] {
+			new SimpleFileEncoderService(encoderService, -1, -1),
+			new SimpleFileEncoderService(encoderService, 0, -1, 0, 0, 3 * 1000, 4 * 777 + 1),
+			new SimpleFileEncoderService(encoderService, -1, 0, 0, 0, 3 * 1000, 4 * 777 + 1),
+			new SimpleFileEncoderService(encoderService, -1, -1, 3, 1_000)
+		};
+
+		for (int i = 0; i < inputs.length; i++) {
+			var streamed = new ByteArrayOutputStream();
+			assertTrue(encoderService.decode(new ByteArrayInputStream(inputs[i]), streamed));
+			assertArrayEquals(source, streamed.toByteArray());
+
+			var encoded = write("encoded." + i, inputs[i]);
+			for (int mode = 0; mode < services.length; mode++) {
+				var decoded = directory.resolve("decoded." + i + "." + mode).toFile();
+				assertTrue(services[mode].decode(encoded, decoded), "input " + i + " mode " + mode);
+				assertArrayEquals(source, Files.readAllBytes(decoded.toPath()), "input " + i + " mode " + mode);
+			}
+		}
+		// runs between line breaks and carried groups go to the engine, the table only decodes what's left
+		assertTrue(engine.decoded.sum() > 19L * inputs.length * (1 + services.length) * inputs[0].length / 20);
+	}
+
+	/**
+	 * encodes {@code length} random bytes with {@code service}, compares the result to the jdk and decodes it back
+	 */
+	private void assertConvertsLikeJdk(SimpleFileEncoderService service, Variant variant, int length) throws Exception {
+		var source = randomBytes(length);
+		var name = variant + "." + length;
+		var encoded = directory.resolve(name + ".b64").toFile();
+		var decoded = directory.resolve(name + ".bin").toFile();
+
+		assertTrue(service.encode(write(name, source), encoded), name);
+		assertArrayEquals(variant.jdkEncoder.encode(source), Files.readAllBytes(encoded.toPath()));
+		assertTrue(service.decode(encoded, decoded), name);
+		assertArrayEquals(source, Files.readAllBytes(decoded.toPath()));
+	}
+
+	/**
+	 * counts the characters decoded by {@code engine}
+	 */
+	private static class CountingEngine implements Base64Engine {
+		private final Base64Engine engine;
+		private final LongAdder decoded = new LongAdder();
+
+		CountingEngine(Base64Engine engine) {
+			this.engine = engine;
+		}
+
+		@Override
+		public String name() {
+			return engine.name();
+		}
+
+		@Override
+		public int encode(byte[] source, int offset, int length, byte[] destination, int destinationOffset, Base64Alphabet alphabet) {
+			return engine.encode(source, offset, length, destination, destinationOffset, alphabet);
+		}
+
+		@Override
+		public int decode(byte[] source, int offset, int length, byte[] destination, int destinationOffset) {
+			decoded.add(length);
+			return engine.decode(source, offset, length, destination, destinationOffset);
+		}
+	}
+
+	private enum Variant {
+		BASIC(Base64Variant.BASIC, Base64.getEncoder()),
+		URL_SAFE_UNPADDED(Base64Variant.URL_SAFE.withoutPadding(), Base64.getUrlEncoder().withoutPadding()),
+		MIME(Base64Variant.MIME, Base64.getMimeEncoder());
+
+		private final Base64Variant variant;
+		private final Base64.Encoder jdkEncoder;
+
+		Variant(Base64Variant variant, Base64.Encoder jdkEncoder) {
+			this.variant = variant;
+			this.jdkEncoder = jdkEncoder;
+		}
+
+		EncoderService encoderService() {
+			return new Base64EncoderService(true, new ScalarBase64Engine(), variant);
+		}
+	}
+
+	private File write(String name, byte[] content) throws Exception {
+		return Files.write(directory.resolve(name), content).toFile();
+	}
+
+	private static byte[] randomBytes(int length) {
+		var bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,67 @@
+package moreland.base64.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StreamingExtractionServiceTests {
+
+	@TempDir
+	Path outputDirectory;
+
+	@Test
+	void extractFindsJsonPathValuesDataUrisAndPemBlocksInOnePass() throws Exception {
+		var attachment = randomBytes(10_000);
+		var image = randomBytes(300);
+		var certificate = randomBytes(500);
+		var json = "{\"items\":[{\"name\":\"a\",\"content\":\"" + Base64.getEncoder().encodeToString(attachment).replace("/", "\\/") + "\"},"
+			+ "{\"icon\":\"data:image/png;base64," + Base64.getEncoder().encodeToString(image) + "\"}],"
+			+ "\"cert\":\"-----BEGIN CERTIFICATE-----\\n" + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(certificate).replace("\n", "\\n")
+			+ "\\n-----END CERTIFICATE-----\\n\",\"other\":{\"content\":\"!\"}}";
+		var service = new StreamingExtractionService("auto", "$.items[*].content", "");
+
+		var spans = service.extract(new ByteArrayInputStream(json.getBytes(StandardCharsets.US_ASCII)), outputDirectory, "dump").orElseThrow();
+
+		assertEquals(3, spans.size());
+		assertTrue(spans.stream().allMatch(span -> span.success()));
+		assertEquals("json $.items[0].content", spans.get(0).kind());
+		assertArrayEquals(attachment, Files.readAllBytes(spans.get(0).output()));
+		assertEquals(outputDirectory.resolve("dump.2.png"), spans.get(1).output());
+		assertArrayEquals(image, Files.readAllBytes(spans.get(1).output()));
+		assertEquals("pem CERTIFICATE", spans.get(2).kind());
+		assertArrayEquals(certificate, Files.readAllBytes(spans.get(2).output()));
+	}
+
+	@Test
+	void extractDecodesXmlElementTextAndReportsInvalidPayloads() {
+		var payload = randomBytes(1_000);
+		var xml = "<doc><ns:data>" + Base64.getMimeEncoder().encodeToString(payload).replace("\r\n", "&#13;&#10;") + "</ns:data>"
+			+ "<data><![CDATA[QUJ$]]></data></doc>";
+		var service = new StreamingExtractionService("xml", "", "data");
+
+		var spans = service.extract(new ByteArrayInputStream(xml.getBytes(StandardCharsets.US_ASCII)), outputDirectory, "doc").orElseThrow();
+
+		assertEquals(2, spans.size());
+		assertTrue(spans.get(0).success());
+		assertEquals(payload.length, spans.get(0).decodedLength());
+		assertFalse(spans.get(1).success());
+		assertFalse(Files.exists(spans.get(1).output()));
+	}
+
+	private static byte[] randomBytes(int length) {
+		var bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,88 @@
+package moreland.base64.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UnixSocketEncoderServiceTests {
+
+	@TempDir
+	Path directory;
+
+	private final UnixSocketEncoderService socketEncoderService = new UnixSocketEncoderService(new Base64EncoderService());
+
+	@Test
+	void encodeAndDecodeRoundTripAcrossManyFrames() throws Exception {
+		var socketPath = startServer();
+		var source = new byte[300_000];
+		new Random(300_000).nextBytes(source);
+
+		var encoded = new ByteArrayOutputStream();
+		assertTrue(socketEncoderService.encode(socketPath, new ByteArrayInputStream(source), encoded));
+		assertArrayEquals(Base64.getEncoder().encode(source), encoded.toByteArray());
+
+		var decoded = new ByteArrayOutputStream();
+		assertTrue(socketEncoderService.decode(socketPath, new ByteArrayInputStream(encoded.toByteArray()), decoded));
+		assertArrayEquals(source, decoded.toByteArray());
+
+		var empty = new ByteArrayOutputStream();
+		assertTrue(socketEncoderService.encode(socketPath, new ByteArrayInputStream(new byte[0]), empty));
+		assertArrayEquals(new byte[0], empty.toByteArray());
+	}
+
+	@Test
+	void failedRequestIsReportedToClientThroughErrorFrame() throws Exception {
+		var socketPath = startServer();
+
+		assertFalse(socketEncoderService.decode(socketPath,
+			new ByteArrayInputStream("QUJD*UJD".getBytes(StandardCharsets.US_ASCII)), new ByteArrayOutputStream()));
+
+		// the server keeps serving after a failed request
+		var decoded = new ByteArrayOutputStream();
+		assertTrue(socketEncoderService.decode(socketPath, new ByteArrayInputStream("QUJD".getBytes(StandardCharsets.US_ASCII)), decoded));
+		assertArrayEquals("ABC".getBytes(StandardCharsets.US_ASCII), decoded.toByteArray());
+	}
+
+	@Test
+	void serveRefusesSocketAlreadyInUse() throws Exception {
+		var socketPath = startServer();
+
+		assertFalse(assertTimeoutPreemptively(Duration.ofSeconds(10),
+			() -> new UnixSocketEncoderService(new Base64EncoderService()).serve(socketPath)));
+	}
+
+	/**
+	 * starts serving on a daemon thread and waits until a connection is accepted, the socket file exists from bind
+	 * so its presence alone doesn't mean the server is listening yet
+	 */
+	private Path startServer() throws InterruptedException {
+		var socketPath = directory.resolve("base64.sock");
+		var server = new Thread(() -> socketEncoderService.serve(socketPath), "base64-test-server");
+		server.setDaemon(true);
+		server.start();
+		for (int attempt = 0; attempt < 500; attempt++) {
+			try {
+				SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+				return socketPath;
+			} catch (IOException e) {
+				Thread.sleep(10);
+			}
+		}
+		throw new AssertionError("server didn't start listening on " + socketPath);
+	}
+}